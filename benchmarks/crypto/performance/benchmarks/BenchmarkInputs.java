@@ -0,0 +1,133 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.benchmarks;
+
+import crypto.performance.Libraries;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Security;
+
+/**
+ * Shared setup for the JMH benchmarks.
+ *
+ * <p>
+ * Benchmarks use the same providers, input file and provider specific
+ * adjustments as the testers, so results can be compared with the ones
+ * recorded on ./data/results.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+final class BenchmarkInputs {
+
+    /**
+     * Default input, the same one used by the testers.
+     *
+     * @since 1.0
+     */
+    static final String DEFAULT_INPUT = "data/colors.jpg";
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * Register all libraries, once per benchmark JVM.
+     *
+     * @since 1.0
+     */
+    static synchronized void registerProviders() {
+        if (Security.getProvider("BC") == null) {
+            Libraries.registerProviders();
+        }
+    }
+
+    /**
+     * Loads the benchmark input into memory.
+     *
+     * @since 1.0
+     * @param path Input file.
+     * @return Input contents.
+     * @throws IOException If the input can not be read.
+     */
+    static byte[] load(String path) throws IOException {
+        return Files.readAllBytes(new File(path).toPath());
+    }
+
+    /**
+     * Creates a key pair generator for a cipher's algorithm.
+     *
+     * <p>
+     * SunJCE does not generate RSA keys, those come from SunRsaSign.
+     * </p>
+     *
+     * @since 1.0
+     * @param algorithm Cipher algorithm (possibly mode and padding).
+     * @param provider Library from where the algorithm comes.
+     * @return A key pair generator.
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     */
+    static KeyPairGenerator keyPairGenerator(String algorithm, String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+
+        String keyAlgorithm = algorithm.split("/")[0];
+
+        if (provider.equals("SunJCE") && keyAlgorithm.equals("RSA")) {
+            return KeyPairGenerator.getInstance(keyAlgorithm, "SunRsaSign");
+        }
+        return KeyPairGenerator.getInstance(keyAlgorithm, provider);
+    }
+
+    /**
+     * Creates a message digest, dealing with name variations.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param provider Library from where the algorithm comes.
+     * @return A message digest.
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     */
+    static MessageDigest messageDigest(String algorithm, String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        try {
+            return MessageDigest.getInstance(algorithm, provider);
+        } catch (NoSuchAlgorithmException ex) {//Deals with name variation for algorithms, with our withou -
+            if (!algorithm.contains("-")) {
+                throw ex;
+            }
+            String[] withoutMinus = algorithm.split("-", 2);
+            return MessageDigest.getInstance(withoutMinus[0] + withoutMinus[1], provider);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.benchmarks;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark for block ciphers: DESede, AES and RC2 on CBC.
+ *
+ * <p>
+ * The same matrix as BlockCipherTester: the whole input is encrypted and/or
+ * decrypted on every invocation.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ *
+ * @see crypto.performance.testers.BlockCipherTester
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class BlockCipherBenchmark {
+
+    @Param({"DESede/CBC/PKCS5Padding", "AES/CBC/PKCS5Padding", "RC2/CBC/PKCS5Padding"})
+    public String algorithm;
+
+    @Param({"BC", "FlexiCore", "SunJCE"})
+    public String provider;
+
+    @Param({BenchmarkInputs.DEFAULT_INPUT})
+    public String input;
+
+    private byte[] plainText;
+    private byte[] cipherText;
+    private Cipher cipherEncryption;
+    private Cipher cipherDecryption;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkInputs.registerProviders();
+        plainText = BenchmarkInputs.load(input);
+
+        KeyGenerator generator = KeyGenerator.getInstance(algorithm.split("/")[0], provider);
+        generator.init(new SecureRandom());
+        SecretKey key = generator.generateKey();
+
+        cipherEncryption = Cipher.getInstance(algorithm, provider);
+        cipherEncryption.init(Cipher.ENCRYPT_MODE, key);
+
+        cipherDecryption = Cipher.getInstance(algorithm, provider);
+        if (cipherEncryption.getIV() != null) {
+            cipherDecryption.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(cipherEncryption.getIV()));
+        } else {
+            cipherDecryption.init(Cipher.DECRYPT_MODE, key);
+        }
+
+        cipherText = cipherEncryption.doFinal(plainText);
+    }
+
+    @Benchmark
+    public byte[] encryption() throws Exception {
+        return cipherEncryption.doFinal(plainText);
+    }
+
+    @Benchmark
+    public byte[] decryption() throws Exception {
+        return cipherDecryption.doFinal(cipherText);
+    }
+
+    @Benchmark
+    public byte[] encryptionDecryption() throws Exception {
+        return cipherDecryption.doFinal(cipherEncryption.doFinal(plainText));
+    }
+}
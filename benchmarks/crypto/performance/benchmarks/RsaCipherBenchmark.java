@@ -0,0 +1,122 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.benchmarks;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmark for RSA, with the padding schemes used by
+ * AsymmetricCipherTester.
+ *
+ * <p>
+ * AsymmetricCipherTester encrypts its input as ECB, one 126 byte block at a
+ * time; here a single block is encrypted and/or decrypted on every
+ * invocation, which is the unit of work repeated by the tester.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ *
+ * @see crypto.performance.testers.AsymmetricCipherTester
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class RsaCipherBenchmark {
+
+    @Param({"RSA/ECB/PKCS1Padding", "RSA/ECB/OAEPWithSHA1AndMGF1Padding",
+        "RSA/ECB/OAEPWithSHA-224AndMGF1Padding", "RSA/ECB/OAEPWithSHA-512AndMGF1Padding"})
+    public String algorithm;
+
+    @Param({"BC", "FlexiCore", "SunJCE"})
+    public String provider;
+
+    @Param({"2048"})
+    public int keySize;
+
+    @Param({"126"})
+    public int blockSize;
+
+    private byte[] plainText;
+    private byte[] cipherText;
+    private Cipher cipherEncryption;
+    private Cipher cipherDecryption;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkInputs.registerProviders();
+
+        SecureRandom randGenerator = new SecureRandom();
+        plainText = new byte[blockSize];
+        randGenerator.nextBytes(plainText);
+
+        KeyPairGenerator generator = BenchmarkInputs.keyPairGenerator(algorithm, provider);
+        generator.initialize(keySize, randGenerator);
+        KeyPair key = generator.generateKeyPair();
+
+        cipherEncryption = Cipher.getInstance(algorithm, provider);
+        cipherEncryption.init(Cipher.ENCRYPT_MODE, key.getPublic());
+
+        cipherDecryption = Cipher.getInstance(algorithm, provider);
+        cipherDecryption.init(Cipher.DECRYPT_MODE, key.getPrivate());
+
+        cipherText = cipherEncryption.doFinal(plainText);
+    }
+
+    @Benchmark
+    public byte[] encryption() throws Exception {
+        return cipherEncryption.doFinal(plainText);
+    }
+
+    @Benchmark
+    public byte[] decryption() throws Exception {
+        return cipherDecryption.doFinal(cipherText);
+    }
+
+    @Benchmark
+    public byte[] encryptionDecryption() throws Exception {
+        return cipherDecryption.doFinal(cipherEncryption.doFinal(plainText));
+    }
+}
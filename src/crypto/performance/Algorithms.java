@@ -0,0 +1,226 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Algorithm names and their variations among providers.
+ *
+ * <p>
+ * Providers register the same algorithm under different names: SHA-512 is
+ * SHA512 for FlexiCore, RIPEMD-160 is RIPEMD160 for everyone, Tiger is TIGER
+ * for Bouncy Castle. Testers use a canonical name, resolved here to the name
+ * each provider knows, so the same algorithm list can be run on all of them.
+ * </p>
+ *
+ * <p>
+ * Names are compared as providers do, ignoring case. Bouncy Castle 1.51
+ * registers Keccak under the SHA3 names, before the final FIPS 202 padding,
+ * so its SHA3 digests differ from SUN's, at the same cost.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public final class Algorithms {
+
+    /**
+     * Known name variations, by canonical name.
+     *
+     * @since 1.0
+     */
+    private static final Map<String, String[]> ALIASES = new LinkedHashMap<>();
+
+    static {
+        //Digests: MD and SHA-2
+        alias("MD5");
+        alias("SHA-1", "SHA1", "SHA");
+        alias("SHA-224", "SHA224");
+        alias("SHA-256", "SHA256");
+        alias("SHA-384", "SHA384");
+        alias("SHA-512", "SHA512");
+        alias("SHA-512/224", "SHA512/224", "SHA512224");
+        alias("SHA-512/256", "SHA512/256", "SHA512256");
+        //Digests: SHA-3 (Keccak on Bouncy Castle 1.51)
+        alias("SHA3-224", "SHA-3-224", "KECCAK-224");
+        alias("SHA3-256", "SHA-3-256", "KECCAK-256");
+        alias("SHA3-384", "SHA-3-384", "KECCAK-384");
+        alias("SHA3-512", "SHA-3-512", "KECCAK-512");
+        //Digests: BLAKE2, not in the bundled providers
+        alias("BLAKE2b-512", "BLAKE2B-512", "BLAKE2b512");
+        alias("BLAKE2s-256", "BLAKE2S-256", "BLAKE2s256");
+        //Digests: others
+        alias("RIPEMD-160", "RIPEMD160", "RMD160");
+        alias("Whirlpool", "WHIRLPOOL");
+        alias("Tiger", "TIGER");
+    }
+
+    private Algorithms() {
+    }
+
+    /**
+     * Registers the variations of a canonical name.
+     *
+     * @since 1.0
+     * @param name Canonical name.
+     * @param variations Other names for the algorithm.
+     */
+    private static void alias(String name, String... variations) {
+        String[] names = new String[variations.length + 1];
+
+        names[0] = name;
+        System.arraycopy(variations, 0, names, 1, variations.length);
+        ALIASES.put(name, names);
+    }
+
+    /**
+     * Returns the hash functions known by canonical name, in order of family.
+     *
+     * @since 1.0
+     * @return Canonical digest names.
+     */
+    public static String[] digests() {
+        return ALIASES.keySet().toArray(new String[ALIASES.size()]);
+    }
+
+    /**
+     * Resolves an algorithm name to the one registered by a provider.
+     *
+     * <p>
+     * The known variations of the name are tried in order; names without
+     * variations are also tried with and without their first minus sign
+     * (SHA-512 and SHA512).
+     * </p>
+     *
+     * @since 1.0
+     * @param type Service type; e.g., MessageDigest, Mac or Cipher.
+     * @param algorithm Algorithm name, canonical or not.
+     * @param provider Provider name.
+     * @return The name registered by the provider.
+     *
+     * @throws NoSuchAlgorithmException If the provider has no variation of
+     * the name.
+     * @throws NoSuchProviderException If the provider is not registered.
+     */
+    public static String resolve(String type, String algorithm, String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+
+        Provider library = Security.getProvider(provider);
+
+        if (library == null) {
+            throw new NoSuchProviderException("Provider not registered: " + provider);
+        }
+
+        for (String name : variations(algorithm)) {
+            if (library.getService(type, name) != null) {
+                return name;
+            }
+        }
+
+        throw new NoSuchAlgorithmException("No such algorithm: " + algorithm + " for provider " + provider);
+    }
+
+    /**
+     * Returns the providers, among the given ones, offering an algorithm.
+     *
+     * @since 1.0
+     * @param type Service type; e.g., MessageDigest, Mac or Cipher.
+     * @param algorithm Algorithm name, canonical or not.
+     * @param providers Provider names.
+     * @return Providers offering the algorithm, in the given order.
+     */
+    public static String[] providers(String type, String algorithm, String... providers) {
+        List<String> offering = new ArrayList<>();
+
+        for (String provider : providers) {
+            try {
+                resolve(type, algorithm, provider);
+                offering.add(provider);
+            } catch (NoSuchAlgorithmException | NoSuchProviderException ex) {
+                //Not offered
+            }
+        }
+
+        return offering.toArray(new String[offering.size()]);
+    }
+
+    /**
+     * Creates a hash function, resolving its name for the provider.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm name, canonical or not.
+     * @param provider Provider name.
+     * @return A new hash function.
+     *
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     */
+    public static MessageDigest messageDigest(String algorithm, String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        return MessageDigest.getInstance(resolve("MessageDigest", algorithm, provider), provider);
+    }
+
+    /**
+     * Returns the variations of a name, the name itself first.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm name, canonical or not.
+     * @return Names to try.
+     */
+    private static List<String> variations(String algorithm) {
+        List<String> names = new ArrayList<>();
+
+        names.add(algorithm);
+        for (String[] aliases : ALIASES.values()) {
+            for (String alias : aliases) {
+                if (alias.equalsIgnoreCase(algorithm)) {
+                    for (String name : aliases) {
+                        if (!names.contains(name)) {
+                            names.add(name);
+                        }
+                    }
+                    return names;
+                }
+            }
+        }
+
+        String[] withoutMinus = algorithm.split("-", 2);
+        if (withoutMinus.length == 2) {
+            names.add(withoutMinus[0] + withoutMinus[1]);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+
+/**
+ * Bulk processing of data through a chain of ciphers.
+ *
+ * <p>
+ * Data is processed in chunks and driven through every cipher using buffers
+ * allocated when the pipeline is created, so the measurements reflect the
+ * ciphers and not per byte stream calls or buffer allocation:
+ * </p>
+ * <ul>
+ * <li>arrays, streams and heap buffers go through
+ * {@link Cipher#update(byte[], int, int, byte[], int)};</li>
+ * <li>direct and mapped buffers go through
+ * {@link Cipher#update(ByteBuffer, ByteBuffer)}, with direct output buffers,
+ * exposing whether the provider has a real ByteBuffer path or copies the data
+ * into arrays.</li>
+ * </ul>
+ *
+ * <p>
+ * The output of each cipher is the input for the next one; e.g., an
+ * encryption cipher followed by a decryption cipher.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.1
+ */
+public final class CipherPipeline {
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final Cipher[] ciphers;
+    private final int chunkSize;
+
+    private final byte[] chunk;
+    private final byte[][] buffers;
+    private final ByteBuffer[] directBuffers;
+
+    /**
+     * Constructor for a pipeline processing streams and arrays.
+     *
+     * <p>
+     * All buffers are allocated here, so the processing allocates none.
+     * </p>
+     *
+     * @since 1.1
+     * @param chunkSize Number of bytes processed at once.
+     * @param ciphers Initialized ciphers, in processing order.
+     */
+    public CipherPipeline(int chunkSize, Cipher... ciphers) {
+        this(chunkSize, false, ciphers);
+    }
+
+    /**
+     * Constructor for a pipeline.
+     *
+     * @since 1.1
+     * @param chunkSize Number of bytes processed at once.
+     * @param direct Whether direct output buffers are needed, for buffers not
+     * backed by accessible arrays.
+     * @param ciphers Initialized ciphers, in processing order.
+     */
+    private CipherPipeline(int chunkSize, boolean direct, Cipher... ciphers) {
+        this.chunkSize = chunkSize;
+        this.ciphers = ciphers;
+
+        int[] sizes = bufferSizes();
+
+        chunk = new byte[chunkSize];
+        buffers = new byte[ciphers.length][];
+        directBuffers = direct ? new ByteBuffer[ciphers.length] : null;
+
+        for (int i = 0; i < ciphers.length; i++) {
+            buffers[i] = new byte[sizes[i]];
+
+            if (direct) {
+                directBuffers[i] = ByteBuffer.allocateDirect(sizes[i]);
+            }
+        }
+    }
+
+    /**
+     * Creates a pipeline for processing a set of buffers.
+     *
+     * <p>
+     * Chunks are not larger than the content of all buffers, so small inputs
+     * do not get full chunk buffers. Direct output buffers are allocated if
+     * any buffer is not backed by an accessible array.
+     * </p>
+     *
+     * @since 1.1
+     * @param input Data source, from position to limit of each buffer.
+     * @param chunkSize Maximum number of bytes processed at once.
+     * @param ciphers Initialized ciphers, in processing order.
+     * @return A new pipeline.
+     */
+    public static CipherPipeline forBuffers(ByteBuffer[] input, int chunkSize, Cipher... ciphers) {
+        long total = 0;
+        boolean direct = false;
+        for (ByteBuffer buffer : input) {
+            total += buffer.remaining();
+            direct |= !buffer.hasArray();
+        }
+
+        return new CipherPipeline((int) Math.max(1, Math.min(chunkSize, total)), direct, ciphers);
+    }
+
+    /**
+     * Process all the data from a stream through the ciphers.
+     *
+     * @since 1.1
+     * @param input Data source.
+     * @return Number of bytes read from the input.
+     *
+     * @throws IOException If the input can not be read.
+     * @throws GeneralSecurityException If a cipher fails.
+     */
+    public long update(InputStream input) throws IOException, GeneralSecurityException {
+        long bytes = 0;
+        int length;
+
+        while ((length = input.read(chunk, 0, chunkSize)) > -1) {
+            bytes += length;
+            update(chunk, 0, length, 0);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Process the data from an array through the ciphers.
+     *
+     * @since 1.1
+     * @param input Data source.
+     * @param offset Offset of the data on the array.
+     * @param length Number of bytes to process.
+     *
+     * @throws GeneralSecurityException If a cipher fails.
+     */
+    public void update(byte[] input, int offset, int length) throws GeneralSecurityException {
+        int end = offset + length;
+
+        for (int position = offset; position < end; position += chunkSize) {
+            update(input, position, Math.min(chunkSize, end - position), 0);
+        }
+    }
+
+    /**
+     * Process the remaining data of several buffers, in order, through the
+     * ciphers.
+     *
+     * @since 1.1
+     * @param input Data source, from position to limit of each buffer.
+     * @return Number of bytes processed.
+     *
+     * @throws GeneralSecurityException If a cipher fails.
+     */
+    public long update(ByteBuffer[] input) throws GeneralSecurityException {
+        long bytes = 0;
+
+        for (ByteBuffer buffer : input) {
+            bytes += update(buffer);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Process the remaining data of a buffer through the ciphers.
+     *
+     * <p>
+     * Buffers backed by accessible arrays are processed as arrays; other
+     * buffers (direct or mapped) are processed as buffers, into direct output
+     * buffers; only pipelines created by
+     * {@link #forBuffers(ByteBuffer[], int, Cipher...)} for such buffers have
+     * them. The buffer's position is moved to its limit.
+     * </p>
+     *
+     * @since 1.1
+     * @param input Data source, from position to limit.
+     * @return Number of bytes processed.
+     *
+     * @throws GeneralSecurityException If a cipher fails.
+     * @throws IllegalStateException If the buffer is not backed by an
+     * accessible array and the pipeline has no direct output buffers.
+     */
+    public long update(ByteBuffer input) throws GeneralSecurityException {
+        int remaining = input.remaining();
+
+        if (input.hasArray()) {
+            update(input.array(), input.arrayOffset() + input.position(), remaining);
+            input.position(input.limit());
+            return remaining;
+        }
+
+        if (directBuffers == null) {
+            throw new IllegalStateException("No direct output buffers: pipeline not created for direct buffers.");
+        }
+
+        ByteBuffer chunk = input.duplicate();
+
+        while (input.hasRemaining()) {
+            chunk.limit(Math.min(input.position() + chunkSize, input.limit()));
+            chunk.position(input.position());
+            input.position(chunk.limit());
+
+            update(chunk, 0);
+        }
+
+        return remaining;
+    }
+
+    /**
+     * Finishes all ciphers, in order, driving the final output of each one
+     * through the next ones.
+     *
+     * @since 1.1
+     * @throws GeneralSecurityException If a cipher fails.
+     */
+    public void doFinal() throws GeneralSecurityException {
+        if (directBuffers != null) {
+            for (int i = 0; i < ciphers.length; i++) {
+                directBuffers[i].clear();
+                ciphers[i].doFinal(EMPTY.duplicate(), directBuffers[i]);
+                directBuffers[i].flip();
+                update(directBuffers[i], i + 1);
+            }
+            return;
+        }
+
+        for (int i = 0; i < ciphers.length; i++) {
+            int length = ciphers[i].doFinal(buffers[i], 0);
+            update(buffers[i], 0, length, i + 1);
+        }
+    }
+
+    /**
+     * Drives data through the ciphers, starting at a given stage.
+     *
+     * @since 1.1
+     * @param data Input for the first stage.
+     * @param offset Offset of the data on the array.
+     * @param length Bytes available on the input.
+     * @param first First stage to update.
+     * @throws GeneralSecurityException If a cipher fails.
+     */
+    private void update(byte[] data, int offset, int length, int first) throws GeneralSecurityException {
+        for (int i = first; i < ciphers.length; i++) {
+            length = ciphers[i].update(data, offset, length, buffers[i], 0);
+            data = buffers[i];
+            offset = 0;
+        }
+    }
+
+    /**
+     * Drives a buffer through the ciphers, starting at a given stage.
+     *
+     * @since 1.1
+     * @param data Input for the first stage, from position to limit.
+     * @param first First stage to update.
+     * @throws GeneralSecurityException If a cipher fails.
+     */
+    private void update(ByteBuffer data, int first) throws GeneralSecurityException {
+        for (int i = first; i < ciphers.length; i++) {
+            directBuffers[i].clear();
+            ciphers[i].update(data, directBuffers[i]);
+            directBuffers[i].flip();
+            data = directBuffers[i];
+        }
+    }
+
+    /**
+     * Computes the size of each output buffer.
+     *
+     * <p>
+     * Each buffer holds the output of its cipher for a full input chunk, plus
+     * two blocks for data buffered inside the cipher and padding.
+     * </p>
+     *
+     * @since 1.1
+     * @return Output buffer sizes.
+     */
+    private int[] bufferSizes() {
+        int[] sizes = new int[ciphers.length];
+        int size = chunkSize;
+
+        for (int i = 0; i < ciphers.length; i++) {
+            size = ciphers[i].getOutputSize(size) + 2 * Math.max(ciphers[i].getBlockSize(), 1);
+            sizes[i] = size;
+        }
+
+        return sizes;
+    }
+}
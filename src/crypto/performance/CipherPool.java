@@ -0,0 +1,259 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+
+/**
+ * Source of Cipher instances, keyed by transformation and provider, with a
+ * configurable reuse strategy.
+ *
+ * <p>
+ * Ciphers are acquired, initialized by the caller (always: a reused cipher
+ * keeps the state of its last use) and released after use. Released ciphers
+ * are kept, up to the pool's capacity per transformation and provider,
+ * according to the strategy:
+ * </p>
+ * <ul>
+ * <li>{@link Strategy#NEW_PER_OPERATION}: nothing is kept, every acquisition
+ * is a {@link Cipher#getInstance(String, String)};</li>
+ * <li>{@link Strategy#THREAD_LOCAL}: each thread keeps its own ciphers, no
+ * synchronization is needed to reuse them;</li>
+ * <li>{@link Strategy#SHARED_POOL}: all threads share bounded queues of
+ * ciphers.</li>
+ * </ul>
+ *
+ * <p>
+ * When no cipher is available a new one is created, so acquisitions never
+ * block; the number of ciphers created is counted, showing how much reuse
+ * each strategy achieves.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public final class CipherPool {
+
+    /**
+     * Reuse strategies.
+     *
+     * @since 1.0
+     */
+    public enum Strategy {
+
+        /**
+         * A new cipher for every operation.
+         */
+        NEW_PER_OPERATION,
+        /**
+         * Ciphers reused by the thread that released them.
+         */
+        THREAD_LOCAL,
+        /**
+         * Ciphers reused by any thread, from a bounded shared pool.
+         */
+        SHARED_POOL
+    }
+
+    /**
+     * Default number of ciphers kept per transformation and provider.
+     *
+     * @since 1.0
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Strategy strategy;
+    private final int capacity;
+
+    private final ConcurrentMap<String, BlockingQueue<Cipher>> sharedCiphers = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Map<String, Deque<Cipher>>> threadCiphers
+            = new ThreadLocal<Map<String, Deque<Cipher>>>() {
+
+                @Override
+                protected Map<String, Deque<Cipher>> initialValue() {
+                    return new HashMap<>();
+                }
+            };
+
+    private final AtomicLong created = new AtomicLong();
+
+    /**
+     * Constructor for a pool with the default capacity.
+     *
+     * @since 1.0
+     * @param strategy Reuse strategy.
+     */
+    public CipherPool(Strategy strategy) {
+        this(strategy, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for a pool.
+     *
+     * @since 1.0
+     * @param strategy Reuse strategy.
+     * @param capacity Maximum number of ciphers kept per transformation and
+     * provider; per thread for thread local reuse.
+     */
+    public CipherPool(Strategy strategy, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+
+        this.strategy = strategy;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Acquires a cipher, reused or new.
+     *
+     * @since 1.0
+     * @param transformation Transformation, as for
+     * {@link Cipher#getInstance(String, String)}.
+     * @param provider Provider name.
+     * @return A cipher, to be initialized before use.
+     *
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     * @throws NoSuchPaddingException
+     */
+    public Cipher acquire(String transformation, String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException, NoSuchPaddingException {
+
+        Cipher cipher = null;
+
+        switch (strategy) {
+            case THREAD_LOCAL:
+                Deque<Cipher> ciphers = threadCiphers.get().get(key(transformation, provider));
+                cipher = ciphers == null ? null : ciphers.pollFirst();
+                break;
+            case SHARED_POOL:
+                BlockingQueue<Cipher> queue = sharedCiphers.get(key(transformation, provider));
+                cipher = queue == null ? null : queue.poll();
+                break;
+            default:
+        }
+
+        if (cipher == null) {
+            cipher = Cipher.getInstance(transformation, provider);
+            created.incrementAndGet();
+        }
+
+        return cipher;
+    }
+
+    /**
+     * Releases a cipher acquired from this pool, which may be kept for reuse
+     * or discarded.
+     *
+     * @since 1.0
+     * @param cipher Cipher no longer in use.
+     */
+    public void release(Cipher cipher) {
+        String key = key(cipher.getAlgorithm(), cipher.getProvider().getName());
+
+        switch (strategy) {
+            case THREAD_LOCAL:
+                Map<String, Deque<Cipher>> ciphers = threadCiphers.get();
+                Deque<Cipher> deque = ciphers.get(key);
+
+                if (deque == null) {
+                    deque = new ArrayDeque<>();
+                    ciphers.put(key, deque);
+                }
+                if (deque.size() < capacity) {
+                    deque.addFirst(cipher);
+                }
+                break;
+            case SHARED_POOL:
+                BlockingQueue<Cipher> queue = sharedCiphers.get(key);
+
+                if (queue == null) {
+                    sharedCiphers.putIfAbsent(key, new ArrayBlockingQueue<Cipher>(capacity));
+                    queue = sharedCiphers.get(key);
+                }
+                queue.offer(cipher);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * Access the reuse strategy.
+     *
+     * @since 1.0
+     * @return Reuse strategy.
+     */
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Access the capacity.
+     *
+     * @since 1.0
+     * @return Maximum number of ciphers kept per transformation and provider.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of ciphers created by this pool.
+     *
+     * @since 1.0
+     * @return Number of {@link Cipher#getInstance(String, String)} calls.
+     */
+    public long getCreated() {
+        return created.get();
+    }
+
+    /**
+     * Builds the key for a transformation and provider.
+     *
+     * @since 1.0
+     * @param transformation Transformation.
+     * @param provider Provider name.
+     * @return Pool key.
+     */
+    private static String key(String transformation, String provider) {
+        return transformation + "@" + provider;
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pre-generated key pairs, by algorithm, key size and provider.
+ *
+ * <p>
+ * Generating key pairs, specially RSA ones, costs from milliseconds to
+ * seconds each; testers that only need keys draw them from a pool instead of
+ * generating one per experiment. The first time a combination is requested,
+ * the pool generates all its key pairs at once, in parallel, on a fork-join
+ * pool; afterwards key pairs are handed out in turns.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public final class KeyPool {
+
+    /**
+     * Default number of key pairs per algorithm, key size and provider.
+     *
+     * @since 1.0
+     */
+    public static final int DEFAULT_SIZE = 8;
+
+    private final int size;
+    private final ForkJoinPool forkJoinPool;
+
+    private static ForkJoinPool sharedPool;
+
+    private final Map<String, KeyPair[]> keyPairs = new HashMap<>();
+    private final Map<String, AtomicInteger> turns = new HashMap<>();
+
+    /**
+     * Constructor for a pool with the default size, generating on the shared
+     * fork-join pool.
+     *
+     * @since 1.0
+     */
+    public KeyPool() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor for a pool generating on the shared fork-join pool.
+     *
+     * @since 1.0
+     * @param size Number of key pairs per algorithm, key size and provider.
+     */
+    public KeyPool(int size) {
+        this(size, sharedPool());
+    }
+
+    /**
+     * Constructor for a pool.
+     *
+     * @since 1.0
+     * @param size Number of key pairs per algorithm, key size and provider.
+     * @param forkJoinPool Pool where key pairs are generated; it is not shut
+     * down by the key pool.
+     */
+    public KeyPool(int size, ForkJoinPool forkJoinPool) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Invalid size: " + size);
+        }
+
+        this.size = size;
+        this.forkJoinPool = forkJoinPool;
+    }
+
+    /**
+     * Takes a key pair, generating the pool's key pairs for the combination
+     * on first use.
+     *
+     * <p>
+     * Key pairs are not removed: they are handed out in turns, so consecutive
+     * calls get different key pairs, up to the pool's size.
+     * </p>
+     *
+     * @since 1.0
+     * @param algorithm Key algorithm; e.g., RSA or EC.
+     * @param keySize Key size, in bits.
+     * @param provider Provider name.
+     * @return A key pair.
+     *
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     */
+    public KeyPair take(String algorithm, int keySize, String provider)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+
+        String id = algorithm + "-" + keySize + "-" + provider;
+        KeyPair[] available;
+        AtomicInteger turn;
+
+        synchronized (keyPairs) {
+            available = keyPairs.get(id);
+
+            if (available == null) {
+                available = generate(algorithm, keySize, provider, size, forkJoinPool, null);
+                keyPairs.put(id, available);
+                turns.put(id, new AtomicInteger());
+            }
+            turn = turns.get(id);
+        }
+
+        return available[(turn.getAndIncrement() & Integer.MAX_VALUE) % available.length];
+    }
+
+    /**
+     * Returns the fork-join pool shared by key pools created without one,
+     * creating it on first use, with all available processors.
+     *
+     * @since 1.0
+     * @return The shared pool.
+     */
+    private static synchronized ForkJoinPool sharedPool() {
+        if (sharedPool == null) {
+            sharedPool = new ForkJoinPool();
+        }
+        return sharedPool;
+    }
+
+    /**
+     * Access the number of key pairs per algorithm, key size and provider.
+     *
+     * @since 1.0
+     * @return Pool size.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Generates key pairs, sequentially or in parallel.
+     *
+     * @since 1.0
+     * @param algorithm Key algorithm; e.g., RSA or EC.
+     * @param keySize Key size, in bits.
+     * @param provider Provider name.
+     * @param n Number of key pairs.
+     * @param forkJoinPool Pool for parallel generation, or null to generate
+     * sequentially on the calling thread.
+     * @param latencies Destination for the clock time of each generation, in
+     * nanoseconds, or null.
+     * @return Generated key pairs.
+     *
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     *
+     * @see #generators(String, int, String, int, ForkJoinPool)
+     */
+    public static KeyPair[] generate(String algorithm, int keySize, String provider, int n,
+            ForkJoinPool forkJoinPool, long[] latencies)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+
+        return generate(generators(algorithm, keySize, provider, n, forkJoinPool), n, forkJoinPool, latencies);
+    }
+
+    /**
+     * Creates initialized generators for a generation, one per range of key
+     * pairs.
+     *
+     * <p>
+     * Sequentially, a single generator is used; in parallel, the key pairs are
+     * split into ranges, each range generated by its own generator, and
+     * ranges are small enough for every worker to get several of them, as
+     * generation times vary widely (RSA).
+     * </p>
+     *
+     * @since 1.0
+     * @param algorithm Key algorithm; e.g., RSA or EC.
+     * @param keySize Key size, in bits.
+     * @param provider Provider name.
+     * @param n Number of key pairs to be generated.
+     * @param forkJoinPool Pool for parallel generation, or null to generate
+     * sequentially.
+     * @return Initialized generators.
+     *
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     */
+    public static KeyPairGenerator[] generators(String algorithm, int keySize, String provider, int n,
+            ForkJoinPool forkJoinPool)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+
+        int ranges = forkJoinPool == null ? 1 : Math.max(1, Math.min(n, 4 * forkJoinPool.getParallelism()));
+        KeyPairGenerator[] generators = new KeyPairGenerator[ranges];
+
+        for (int i = 0; i < ranges; i++) {
+            generators[i] = KeyPairGenerator.getInstance(algorithm, provider);
+            generators[i].initialize(keySize, new SecureRandom());
+        }
+
+        return generators;
+    }
+
+    /**
+     * Generates key pairs with initialized generators, sequentially or in
+     * parallel.
+     *
+     * <p>
+     * The key pairs are split evenly into one range per generator.
+     * </p>
+     *
+     * @since 1.0
+     * @param generators Initialized generators, one per range.
+     * @param n Number of key pairs.
+     * @param forkJoinPool Pool for parallel generation, or null to generate
+     * sequentially on the calling thread.
+     * @param latencies Destination for the clock time of each generation, in
+     * nanoseconds, or null.
+     * @return Generated key pairs.
+     */
+    public static KeyPair[] generate(KeyPairGenerator[] generators, int n, ForkJoinPool forkJoinPool,
+            long[] latencies) {
+
+        KeyPair[] generated = new KeyPair[n];
+        Generation generation = new Generation(generators, generated, latencies, 0, generators.length);
+
+        if (forkJoinPool == null) {
+            generation.compute();
+        } else {
+            forkJoinPool.invoke(generation);
+        }
+
+        return generated;
+    }
+
+    /**
+     * Generates a range of key pairs with a single generator.
+     *
+     * @since 1.0
+     * @param generator Initialized generator.
+     * @param generated Destination for the key pairs.
+     * @param latencies Destination for the generation times, or null.
+     * @param from First position, inclusive.
+     * @param to Last position, exclusive.
+     */
+    private static void generate(KeyPairGenerator generator, KeyPair[] generated, long[] latencies,
+            int from, int to) {
+
+        for (int i = from; i < to; i++) {
+            long start = System.nanoTime();
+            generated[i] = generator.generateKeyPair();
+
+            if (latencies != null) {
+                latencies[i] = System.nanoTime() - start;
+            }
+        }
+    }
+
+    /**
+     * Fork-join generation of the ranges of a set of generators.
+     *
+     * @since 1.0
+     */
+    private static final class Generation extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final KeyPairGenerator[] generators;
+        private final KeyPair[] generated;
+        private final long[] latencies;
+        private final int from;
+        private final int to;
+
+        Generation(KeyPairGenerator[] generators, KeyPair[] generated, long[] latencies, int from, int to) {
+            this.generators = generators;
+            this.generated = generated;
+            this.latencies = latencies;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Generation(generators, generated, latencies, from, middle),
+                        new Generation(generators, generated, latencies, middle, to));
+                return;
+            }
+
+            long n = generated.length;
+            generate(generators[from], generated, latencies,
+                    (int) (from * n / generators.length), (int) (to * n / generators.length));
+        }
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.ProviderException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel hashing on a fork-join pool: many files at once, or a single file
+ * as a Merkle tree.
+ *
+ * <p>
+ * Files are split into ranges, each range hashed by a worker with its own
+ * digest; ranges are small enough for every worker to get several of them, as
+ * file sizes may vary widely.
+ * </p>
+ *
+ * <p>
+ * A single file is hashed as a Merkle tree of fixed-size leaves, as in RFC
+ * 6962: leaves are hashed as H(0x00 || leaf) and nodes as H(0x01 || left ||
+ * right), the left subtree holding the largest power of two of leaves smaller
+ * than the total. Subtrees are hashed in parallel, reading their leaves with
+ * positional reads on a shared channel; the root depends on the leaf size,
+ * not on the parallelism.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public final class ParallelHasher {
+
+    /**
+     * Default leaf size for trees, in bytes.
+     *
+     * @since 1.0
+     */
+    public static final int DEFAULT_LEAF_SIZE = 1024 * 1024;
+
+    /**
+     * Buffer size for reading files.
+     *
+     * @since 1.0
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte LEAF = 0x00;
+    private static final byte NODE = 0x01;
+
+    private final String algorithm;
+    private final String provider;
+    private final ForkJoinPool forkJoinPool;
+    private final int leafSize;
+
+    /**
+     * Constructor for a hasher with the default leaf size.
+     *
+     * @since 1.0
+     * @param algorithm Hash function, canonical name or not.
+     * @param provider Provider name.
+     * @param forkJoinPool Pool where hashing is done.
+     *
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     */
+    public ParallelHasher(String algorithm, String provider, ForkJoinPool forkJoinPool)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        this(algorithm, provider, forkJoinPool, DEFAULT_LEAF_SIZE);
+    }
+
+    /**
+     * Constructor for a hasher.
+     *
+     * @since 1.0
+     * @param algorithm Hash function, canonical name or not.
+     * @param provider Provider name.
+     * @param forkJoinPool Pool where hashing is done.
+     * @param leafSize Leaf size for trees, in bytes.
+     *
+     * @throws NoSuchAlgorithmException
+     * @throws NoSuchProviderException
+     */
+    public ParallelHasher(String algorithm, String provider, ForkJoinPool forkJoinPool, int leafSize)
+            throws NoSuchAlgorithmException, NoSuchProviderException {
+        if (leafSize < 1) {
+            throw new IllegalArgumentException("Invalid leaf size: " + leafSize);
+        }
+
+        this.algorithm = Algorithms.resolve("MessageDigest", algorithm, provider);
+        this.provider = provider;
+        this.forkJoinPool = forkJoinPool;
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * Hashes each file.
+     *
+     * @since 1.0
+     * @param files Files to hash.
+     * @return Digests, in the order of the files.
+     * @throws IOException If a file can not be read.
+     */
+    public byte[][] hashFiles(File[] files) throws IOException {
+        byte[][] digests = new byte[files.length][];
+        int threshold = Math.max(1, files.length / (4 * forkJoinPool.getParallelism()));
+
+        try {
+            forkJoinPool.invoke(new FileRange(files, digests, 0, files.length, threshold));
+        } catch (ReadFailure ex) {
+            throw ex.getCause();
+        }
+
+        return digests;
+    }
+
+    /**
+     * Hashes a file as a Merkle tree.
+     *
+     * @since 1.0
+     * @param file File to hash.
+     * @return Root of the tree.
+     * @throws IOException If the file can not be read.
+     */
+    public byte[] hashTree(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            FileChannel channel = input.getChannel();
+            long nLeaves = leaves(channel.size());
+
+            if (nLeaves == 0) {
+                return digest().digest();
+            }
+
+            long threshold = Math.max(1, nLeaves / (4 * forkJoinPool.getParallelism()));
+
+            try {
+                return forkJoinPool.invoke(new Tree(channel, 0, nLeaves, threshold));
+            } catch (ReadFailure ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of leaves of a tree.
+     *
+     * @since 1.0
+     * @param size Size of the input, in bytes.
+     * @return Number of leaves, the last one possibly shorter.
+     */
+    public long leaves(long size) {
+        return (size + leafSize - 1) / leafSize;
+    }
+
+    /**
+     * Access the hash function name, as registered by the provider.
+     *
+     * @since 1.0
+     * @return Algorithm name.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Access the provider name.
+     *
+     * @since 1.0
+     * @return Provider name.
+     */
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * Access the leaf size for trees.
+     *
+     * @since 1.0
+     * @return Leaf size, in bytes.
+     */
+    public int getLeafSize() {
+        return leafSize;
+    }
+
+    /**
+     * Creates a digest for a worker.
+     *
+     * @since 1.0
+     * @return A new digest.
+     */
+    private MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance(algorithm, provider);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException ex) {
+            throw new ProviderException(ex);//Already resolved by the constructor
+        }
+    }
+
+    /**
+     * Read failure inside a task, carrying the original exception to the
+     * calling thread.
+     *
+     * @since 1.0
+     */
+    private static final class ReadFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        ReadFailure(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+
+    /**
+     * Fork-join hashing of a range of files.
+     *
+     * @since 1.0
+     */
+    private final class FileRange extends RecursiveTask<Void> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final File[] files;
+        private final byte[][] digests;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        FileRange(File[] files, byte[][] digests, int from, int to, int threshold) {
+            this.files = files;
+            this.digests = digests;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Void compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new FileRange(files, digests, from, middle, threshold),
+                        new FileRange(files, digests, middle, to, threshold));
+                return null;
+            }
+
+            MessageDigest digest = digest();
+            byte[] buffer = new byte[BUFFER_SIZE];
+
+            for (int i = from; i < to; i++) {
+                try (InputStream input = new FileInputStream(files[i])) {
+                    int length;
+
+                    while ((length = input.read(buffer)) > -1) {
+                        digest.update(buffer, 0, length);
+                    }
+                    digests[i] = digest.digest();
+                } catch (IOException ex) {
+                    throw new ReadFailure(ex);
+                }
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Fork-join hashing of a subtree.
+     *
+     * @since 1.0
+     */
+    private final class Tree extends RecursiveTask<byte[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long from;
+        private final long to;
+        private final long threshold;
+
+        Tree(FileChannel channel, long from, long to, long threshold) {
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected byte[] compute() {
+            if (to - from > threshold) {
+                long middle = from + split(to - from);
+                Tree left = new Tree(channel, from, middle, threshold);
+                Tree right = new Tree(channel, middle, to, threshold);
+
+                right.fork();
+                return node(digest(), left.compute(), right.join());
+            }
+
+            try {
+                return subtree(digest(), ByteBuffer.allocate(leafSize), from, to);
+            } catch (IOException ex) {
+                throw new ReadFailure(ex);
+            }
+        }
+
+        /**
+         * Hashes a subtree on the calling thread.
+         *
+         * @param digest Digest to use.
+         * @param buffer Buffer for one leaf.
+         * @param first First leaf, inclusive.
+         * @param last Last leaf, exclusive.
+         * @return Root of the subtree.
+         * @throws IOException
+         */
+        private byte[] subtree(MessageDigest digest, ByteBuffer buffer, long first, long last) throws IOException {
+            if (last - first == 1) {
+                return leaf(digest, buffer, first);
+            }
+
+            long middle = first + split(last - first);
+            return node(digest, subtree(digest, buffer, first, middle), subtree(digest, buffer, middle, last));
+        }
+
+        /**
+         * Hashes a leaf.
+         *
+         * @param digest Digest to use.
+         * @param buffer Buffer for the leaf.
+         * @param index Leaf index.
+         * @return Hash of the leaf.
+         * @throws IOException
+         */
+        private byte[] leaf(MessageDigest digest, ByteBuffer buffer, long index) throws IOException {
+            long position = index * leafSize;
+
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                int length = channel.read(buffer, position + buffer.position());
+                if (length < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+
+            digest.update(LEAF);
+            digest.update(buffer);
+            return digest.digest();
+        }
+
+        /**
+         * Hashes a node.
+         *
+         * @param digest Digest to use.
+         * @param left Root of the left subtree.
+         * @param right Root of the right subtree.
+         * @return Hash of the node.
+         */
+        private byte[] node(MessageDigest digest, byte[] left, byte[] right) {
+            digest.update(NODE);
+            digest.update(left);
+            digest.update(right);
+            return digest.digest();
+        }
+
+        /**
+         * Returns the size of the left subtree: the largest power of two
+         * smaller than the number of leaves.
+         *
+         * @param nLeaves Number of leaves, at least two.
+         * @return Leaves in the left subtree.
+         */
+        private long split(long nLeaves) {
+            return Long.highestOneBit(nLeaves - 1);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Seeded, reproducible, synthetic input of any size.
+ *
+ * <p>
+ * Data is generated in fixed blocks from a seeded pseudo-random generator, so
+ * the same size and seed always give the same bytes, however they are read.
+ * Content is streamed: no size, not even several gigabytes, requires more
+ * memory than one block.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class SyntheticPayload {
+
+    /**
+     * Seed used when none is given.
+     *
+     * @since 1.0
+     */
+    public static final long DEFAULT_SEED = 0x5EEDL;
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final long size;
+    private final long seed;
+
+    /**
+     * Constructor for a payload with the default seed.
+     *
+     * @since 1.0
+     * @param size Payload size in bytes.
+     */
+    public SyntheticPayload(long size) {
+        this(size, DEFAULT_SEED);
+    }
+
+    /**
+     * Constructor for a payload.
+     *
+     * @since 1.0
+     * @param size Payload size in bytes.
+     * @param seed Seed for the content.
+     */
+    public SyntheticPayload(long size, long seed) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative payload size: " + size);
+        }
+
+        this.size = size;
+        this.seed = seed;
+    }
+
+    /**
+     * Access the payload size.
+     *
+     * @since 1.0
+     * @return Size in bytes.
+     */
+    public long length() {
+        return size;
+    }
+
+    /**
+     * Access the seed for the content.
+     *
+     * @since 1.0
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Opens a new stream over the payload's content, from its beginning.
+     *
+     * @since 1.0
+     * @return A stream with the payload's content.
+     */
+    public InputStream openStream() {
+        return new InputStream() {
+
+            private final Random generator = new Random(seed);
+            private final byte[] block = new byte[BLOCK_SIZE];
+            private int blockPosition = BLOCK_SIZE;
+            private long remaining = size;
+
+            @Override
+            public int read() {
+                byte[] single = new byte[1];
+                return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (remaining == 0) {
+                    return -1;
+                }
+
+                if (blockPosition == BLOCK_SIZE) {
+                    generator.nextBytes(block);
+                    blockPosition = 0;
+                }
+
+                int count = (int) Math.min(Math.min(length, BLOCK_SIZE - blockPosition), remaining);
+                System.arraycopy(block, blockPosition, buffer, offset, count);
+                blockPosition += count;
+                remaining -= count;
+
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Writes the payload into a file, unless it was already written.
+     *
+     * <p>
+     * Files are named after size and seed, so payloads are reused among runs;
+     * a file with the expected name and size is assumed to hold the payload.
+     * </p>
+     *
+     * @since 1.0
+     * @param directory Destination directory, created if needed.
+     * @return The file holding the payload.
+     * @throws IOException If the file can not be written.
+     */
+    public File materialize(File directory) throws IOException {
+        File file = new File(directory, "payload-" + size + "-" + seed + ".bin");
+
+        if (file.isFile() && file.length() == size) {
+            return file;
+        }
+
+        directory.mkdirs();
+        File tmp = new File(directory, file.getName() + ".tmp");
+
+        try (InputStream input = openStream();
+                OutputStream output = new BufferedOutputStream(new FileOutputStream(tmp))) {
+
+            byte[] buffer = new byte[BLOCK_SIZE];
+            int length;
+
+            while ((length = input.read(buffer, 0, buffer.length)) > -1) {
+                output.write(buffer, 0, length);
+            }
+        }
+
+        if (!tmp.renameTo(file)) {
+            file.delete();
+
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Payload could not be written: " + file);
+            }
+        }
+
+        return file;
+    }
+
+    /**
+     * Returns payload sizes from 16 bytes up to a maximum, growing by 16.
+     *
+     * @since 1.0
+     * @param maxSize Largest size, in bytes.
+     * @return Payload sizes, in increasing order.
+     */
+    public static long[] sizes(long maxSize) {
+        int n = 0;
+        for (long size = 16; size <= maxSize; size *= 16) {
+            n++;
+        }
+
+        long[] sizes = new long[n];
+        long size = 16;
+        for (int i = 0; i < n; i++, size *= 16) {
+            sizes[i] = size;
+        }
+
+        return sizes;
+    }
+}
@@ -26,13 +26,34 @@
  */
 package crypto.performance;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.Cipher;
+import javax.crypto.CipherInputStream;
 import javax.crypto.NoSuchPaddingException;
+import performance.ConcurrentSummary;
+import performance.SampleRecorder;
 import performance.SimpleMeter;
 import performance.TimerSummary;
 
@@ -44,6 +65,196 @@ import performance.TimerSummary;
  */
 public abstract class TimeTester {
 
+    /**
+     * Destination for the raw measurements of every experiment.
+     *
+     * @since 1.1
+     */
+    private File samplesDirectory;
+
+    /**
+     * Number of consecutive warm-up experiments evaluated for steady state.
+     *
+     * @since 1.1
+     */
+    private int warmUpWindow = 5;
+
+    /**
+     * Coefficient of variation, among the warm-up window clock times, under
+     * which the steady state is considered reached.
+     *
+     * @since 1.1
+     */
+    private double warmUpThreshold = 0.05;
+
+    /**
+     * Maximum number of warm-up experiments.
+     *
+     * @since 1.1
+     */
+    private int maxWarmUpIterations = 50;
+
+    /**
+     * Maximum time spent warming up, in nanoseconds.
+     *
+     * @since 1.1
+     */
+    private long maxWarmUpTime = TimeUnit.SECONDS.toNanos(60);
+
+    /**
+     * Number of bytes processed at once by bulk tests; zero for byte by byte
+     * stream processing.
+     *
+     * @since 1.1
+     */
+    private int chunkSize;
+
+    /**
+     * How bulk tests access their input.
+     *
+     * @since 1.1
+     */
+    private InputMode inputMode = InputMode.STREAM;
+
+    /**
+     * Chunk size used by bulk tests on mapped input when no chunk size is
+     * defined.
+     *
+     * @since 1.1
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /**
+     * Largest region of a file mapped at once.
+     *
+     * @since 1.1
+     */
+    private static final long MAX_MAPPING_SIZE = 1L << 30;
+
+    /**
+     * Files loaded into memory, shared by all testers.
+     *
+     * @since 1.1
+     */
+    private static final Map<File, byte[]> LOADED_INPUTS = new HashMap<>();
+
+    /**
+     * Phase: provider lookup (getInstance calls).
+     *
+     * @since 1.1
+     */
+    public static final String PHASE_LOOKUP = "lookup";
+
+    /**
+     * Phase: key generation.
+     *
+     * @since 1.1
+     */
+    public static final String PHASE_KEYGEN = "keygen";
+
+    /**
+     * Phase: cipher, or digest, initialization.
+     *
+     * @since 1.1
+     */
+    public static final String PHASE_INIT = "init";
+
+    /**
+     * Phase: bulk processing (update calls).
+     *
+     * @since 1.1
+     */
+    public static final String PHASE_BULK = "bulk";
+
+    /**
+     * Phase: finalization (doFinal, or digest, calls).
+     *
+     * @since 1.1
+     */
+    public static final String PHASE_FINAL = "final";
+
+    /**
+     * Ways a test can access its input.
+     *
+     * @since 1.1
+     */
+    public enum InputMode {
+
+        /**
+         * Buffered file streams, copying the data into heap arrays.
+         */
+        STREAM,
+        /**
+         * Memory-mapped file, processed as direct buffers.
+         */
+        MAPPED,
+        /**
+         * File loaded once into a heap array, shared by all experiments, so
+         * no I/O is measured.
+         */
+        MEMORY
+    }
+
+    /**
+     * Operations a test can execute.
+     *
+     * @since 1.1
+     */
+    public enum Operation {
+
+        /**
+         * Encryption followed by decryption.
+         */
+        ENCRYPTION_DECRYPTION,
+        /**
+         * Encryption only.
+         */
+        ENCRYPTION,
+        /**
+         * Decryption only.
+         */
+        DECRYPTION;
+
+        /**
+         * Maps the encryptDecrypt flag into an operation.
+         *
+         * @since 1.1
+         * @param encryptDecrypt
+         * <ul>
+         * <li>true: for encryption;</li>
+         * <li>false: for decryption.</li>
+         * </ul>
+         * @return The corresponding operation.
+         */
+        public static Operation of(boolean encryptDecrypt) {
+            return encryptDecrypt ? ENCRYPTION : DECRYPTION;
+        }
+    }
+
+    /**
+     * A single experiment, repeated during warm-up and tests.
+     *
+     * @since 1.1
+     */
+    protected interface Experiment {
+
+        /**
+         * Runs the experiment once.
+         *
+         * @since 1.1
+         * @return A SimpleMeter containing the time measurements, or null if
+         * the experiment failed.
+         *
+         * @throws java.security.NoSuchProviderException
+         * @throws java.security.NoSuchAlgorithmException
+         * @throws javax.crypto.NoSuchPaddingException
+         * @throws java.security.InvalidAlgorithmParameterException
+         * @throws java.security.InvalidKeyException
+         */
+        SimpleMeter run() throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+                InvalidKeyException, InvalidAlgorithmParameterException;
+    }
+
     /**
      * Executes n tests on the specified algorithm from the given provider.
      *
@@ -67,8 +278,7 @@ public abstract class TimeTester {
 
         for (String provider : providers) {
             testsSummary = execTests(nTests, baseInput, algorithm, provider);
-            testsSummary.print(out);
-            out.println();
+            report(testsSummary, out);
         }
     }
 
@@ -101,8 +311,7 @@ public abstract class TimeTester {
 
         for (String provider : providers) {
             testsSummary = execTests(nTests, baseInput, algorithm, encryptDecrypt, provider);
-            testsSummary.print(out);
-            out.println();
+            report(testsSummary, out);
         }
     }
 
@@ -137,8 +346,7 @@ public abstract class TimeTester {
 
         for (String provider : providers) {
             testsSummary = execTests(nTests, baseInput, algorithm, keySize, provider);
-            testsSummary.print(out);
-            out.println();
+            report(testsSummary, out);
         }
     }
 
@@ -179,8 +387,7 @@ public abstract class TimeTester {
 
         for (String provider : providers) {
             testsSummary = execTests(nTests, baseInput, algorithm, encryptDecrypt, keySize, provider);
-            testsSummary.print(out);
-            out.println();
+            report(testsSummary, out);
         }
     }
 
@@ -209,13 +416,8 @@ public abstract class TimeTester {
             throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
             InvalidKeyException, InvalidAlgorithmParameterException {
 
-        TimerSummary summary = new TimerSummary(algorithm + "-" + provider);
-
-        for (int i = 0; i < nTests; i++) {
-            summary.addSimpleMeter(test(baseInput, algorithm, provider));
-        }
-
-        return summary;
+        return execTests(nTests, baseInput, algorithm + "-" + provider,
+                experiment(baseInput, algorithm, Operation.ENCRYPTION_DECRYPTION, 0, provider));
     }
 
     /**
@@ -252,17 +454,8 @@ public abstract class TimeTester {
             throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
             InvalidKeyException, InvalidAlgorithmParameterException {
 
-        TimerSummary summary = new TimerSummary(algorithm + "-" + provider);
-
-        for (int i = 0; i < nTests; i++) {
-            if (encryptDecrypt) {
-                summary.addSimpleMeter(testEncryption(baseInput, algorithm,  provider));
-            } else {
-                summary.addSimpleMeter(testDecryption(baseInput, algorithm, provider));
-            }
-        }
-
-        return summary;
+        return execTests(nTests, baseInput, algorithm + "-" + provider,
+                experiment(baseInput, algorithm, Operation.of(encryptDecrypt), 0, provider));
     }
 
     /**
@@ -294,13 +487,8 @@ public abstract class TimeTester {
             throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
             InvalidKeyException, InvalidAlgorithmParameterException {
 
-        TimerSummary summary = new TimerSummary(algorithm + "-" + provider);
-
-        for (int i = 0; i < nTests; i++) {
-            summary.addSimpleMeter(test(baseInput, algorithm, keySize, provider));
-        }
-
-        return summary;
+        return execTests(nTests, baseInput, algorithm + "-" + provider,
+                experiment(baseInput, algorithm, Operation.ENCRYPTION_DECRYPTION, keySize, provider));
     }
 
     /**
@@ -339,19 +527,929 @@ public abstract class TimeTester {
             throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
             InvalidKeyException, InvalidAlgorithmParameterException {
 
-        TimerSummary summary = new TimerSummary(algorithm + "-" + provider);
+        return execTests(nTests, baseInput, algorithm + "-" + provider,
+                experiment(baseInput, algorithm, Operation.of(encryptDecrypt), keySize, provider));
+    }
+
+    /**
+     * Executes n tests of an experiment.
+     *
+     * <p>
+     * The experiment is first warmed up, without measurements being kept,
+     * until its clock times are steady or the warm-up budget is exhausted.
+     * Then n sequential tests are executed, collecting time measurements and
+     * returning the collected data in a summary. Failed experiments are
+     * reported by the tests and left out of the summary, as in concurrent
+     * tests.
+     * </p>
+     *
+     * @since 1.1
+     * @param nTests Number of tests to run.
+     * @param baseInput Input file to run the tests.
+     * @param name Summary's name.
+     * @param experiment Experiment to be executed.
+     * @return A Summary containing the time measurements.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    protected TimerSummary execTests(int nTests, File baseInput, String name, Experiment experiment)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        TimerSummary summary = createSummary(name);
+
+        warmUp(experiment, summary);
 
         for (int i = 0; i < nTests; i++) {
-            if (encryptDecrypt) {
-                summary.addSimpleMeter(testEncryption(baseInput, algorithm, keySize, provider));
-            } else {
-                summary.addSimpleMeter(testDecryption(baseInput, algorithm, keySize, provider));
+            SimpleMeter meter = experiment.run();
+
+            if (meter != null) {//Failed experiments are reported by the tests
+                summary.addSimpleMeter(meter, inputBytes(baseInput));
             }
         }
 
         return summary;
     }
 
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each chunk size.
+     *
+     * <p>
+     * Data is processed in bulk, one chunk at a time, and the throughput for
+     * each chunk size is reported after the summaries of each provider. The
+     * chunk size in use before the sweep is restored at the end.
+     * </p>
+     *
+     * @since 1.1
+     * @param nTests Number of tests to run.
+     * @param chunkSizes Chunk sizes to evaluate, in bytes.
+     * @param baseInput Input file to run the tests.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param operation Operation to test.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see #chunkSizes()
+     */
+    public void execChunkSweep(int nTests, int[] chunkSizes, File baseInput, PrintStream out,
+            String algorithm, Operation operation, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        int previousChunkSize = getChunkSize();
+
+        try {
+            for (String provider : providers) {
+                String name = algorithm + "-" + provider;
+                Experiment experiment = experiment(baseInput, algorithm, operation, 0, provider);
+                double[] throughputs = new double[chunkSizes.length];
+
+                for (int i = 0; i < chunkSizes.length; i++) {
+                    setChunkSize(chunkSizes[i]);
+
+                    TimerSummary summary = execTests(nTests, baseInput, name + "-" + chunkSizes[i] + "B", experiment);
+                    report(summary, out);
+                    throughputs[i] = summary.getThroughput();
+                }
+
+                out.println(label(name) + " throughput");
+                out.println(String.format("%15s\t%10s", "Chunk Size", "MB/s"));
+                for (int i = 0; i < chunkSizes.length; i++) {
+                    out.println(String.format("%15d\t%10.2f", chunkSizes[i], throughputs[i]));
+                }
+                out.println();
+            }
+        } finally {
+            setChunkSize(previousChunkSize);
+        }
+    }
+
+    /**
+     * Returns the default chunk sizes for chunk sweeps.
+     *
+     * @since 1.1
+     * @return Chunk sizes from 64 bytes to 1 MiB, growing by four.
+     */
+    public static int[] chunkSizes() {
+        return new int[]{64, 256, 1024, 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024};
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * synthetic payloads of each size.
+     *
+     * <p>
+     * Payloads are seeded, so reproducible, and written once into the payloads
+     * directory, where they are reused by later sweeps. After the summaries of
+     * each provider, the clock time and throughput for each size are reported,
+     * along with a fit of the clock time as a fixed overhead per call plus a
+     * cost per byte.
+     * </p>
+     *
+     * @since 1.1
+     * @param nTests Number of tests to run.
+     * @param sizes Payload sizes, in bytes.
+     * @param payloads Directory for the payload files.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param operation Operation to test.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.io.IOException If a payload can not be written.
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see SyntheticPayload#sizes(long)
+     */
+    public void execSizeSweep(int nTests, long[] sizes, File payloads, PrintStream out,
+            String algorithm, Operation operation, String[] providers)
+            throws IOException, NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        File[] inputs = new File[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            inputs[i] = new SyntheticPayload(sizes[i]).materialize(payloads);
+        }
+
+        for (String provider : providers) {
+            String name = algorithm + "-" + provider;
+            double[] clockTimes = new double[sizes.length];
+            double[] throughputs = new double[sizes.length];
+
+            for (int i = 0; i < sizes.length; i++) {
+                Experiment experiment = experiment(inputs[i], algorithm, operation, 0, provider);
+
+                TimerSummary summary = execTests(nTests, inputs[i], name + "-" + sizes[i] + "B", experiment);
+                report(summary, out);
+                clockTimes[i] = summary.getClockTimeAvg();
+                throughputs[i] = summary.getThroughput();
+            }
+
+            out.println(label(name) + " size sweep");
+            out.println(String.format("%15s\t%15s\t%10s", "Size", "Clock Time(us)", "MB/s"));
+            for (int i = 0; i < sizes.length; i++) {
+                out.println(String.format("%15d\t%15.2f\t%10.2f",
+                        sizes[i],
+                        clockTimes[i] / TimeUnit.MICROSECONDS.toNanos(1),
+                        throughputs[i]));
+            }
+
+            double[] fit = fitOverhead(sizes, clockTimes);
+            out.println(String.format("Fixed overhead: %.2f us/call, cost: %.4f ns/byte",
+                    fit[0] / TimeUnit.MICROSECONDS.toNanos(1), fit[1]));
+            out.println();
+        }
+    }
+
+    /**
+     * Fits clock times as a fixed overhead plus a cost per byte.
+     *
+     * <p>
+     * Least squares weighted by the inverse of the squared times, so every
+     * size counts by its relative error; otherwise the largest sizes, taking
+     * orders of magnitude longer, would hide the overhead.
+     * </p>
+     *
+     * @since 1.1
+     * @param sizes Payload sizes, in bytes.
+     * @param times Average clock times, in nanoseconds.
+     * @return Overhead in nanoseconds and cost in nanoseconds per byte.
+     */
+    private static double[] fitOverhead(long[] sizes, double[] times) {
+        double s = 0, sx = 0, sy = 0, sxx = 0, sxy = 0;
+
+        for (int i = 0; i < sizes.length; i++) {
+            if (times[i] <= 0) {
+                continue;
+            }
+
+            double w = 1 / (times[i] * times[i]);
+            s += w;
+            sx += w * sizes[i];
+            sy += w * times[i];
+            sxx += w * sizes[i] * (double) sizes[i];
+            sxy += w * sizes[i] * times[i];
+        }
+
+        double determinant = s * sxx - sx * sx;
+        if (determinant == 0) {
+            return new double[]{0, 0};
+        }
+
+        double cost = (s * sxy - sx * sy) / determinant;
+        return new double[]{(sy - cost * sx) / s, cost};
+    }
+
+    /**
+     * Executes the specified algorithm, from each provider, with an increasing
+     * number of threads.
+     *
+     * <p>
+     * For every provider, the experiment is warmed up once and then executed
+     * concurrently by each number of threads, producing a scaling curve:
+     * aggregate throughput, speedup and efficiency per number of threads.
+     * </p>
+     *
+     * @since 1.1
+     * @param nTests Number of tests to run on each thread.
+     * @param threadCounts Numbers of threads to evaluate.
+     * @param baseInput Input file to run the tests.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param operation Operation to test.
+     * @param keySize Key size, or zero (or less) for the provider's default.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see #threadCounts()
+     */
+    public void execScalingTests(int nTests, int[] threadCounts, File baseInput, PrintStream out,
+            String algorithm, Operation operation, int keySize, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        for (String provider : providers) {
+            String name = algorithm + "-" + provider;
+            Experiment experiment = experiment(baseInput, algorithm, operation, keySize, provider);
+            List<ConcurrentSummary> curve = new ArrayList<>();
+
+            warmUp(experiment, new TimerSummary(name));
+
+            for (int nThreads : threadCounts) {
+                ConcurrentSummary summary = execConcurrentTests(nTests, nThreads, baseInput,
+                        name + " (" + nThreads + " threads)", experiment);
+                summary.print(out);
+                out.println();
+                curve.add(summary);
+            }
+
+            out.println(label(name) + " scaling");
+            ConcurrentSummary.printScaling(curve, out);
+            out.println();
+        }
+    }
+
+    /**
+     * Executes n tests of an experiment on each of several threads at once.
+     *
+     * <p>
+     * Every thread runs its own experiments, so ciphers, digests and inputs
+     * are never shared. Threads wait on a start barrier, so all of them are
+     * released together, and the clock time is measured from their release to
+     * the end of the last one.
+     * </p>
+     *
+     * @since 1.1
+     * @param nTests Number of tests to run on each thread.
+     * @param nThreads Number of threads.
+     * @param baseInput Input file to run the tests.
+     * @param name Summary's name.
+     * @param experiment Experiment to be executed.
+     * @return A summary containing the per thread and aggregate measurements.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    protected ConcurrentSummary execConcurrentTests(final int nTests, int nThreads, final File baseInput,
+            String name, final Experiment experiment)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        final CountDownLatch ready = new CountDownLatch(nThreads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final TimerSummary[] threadSummaries = new TimerSummary[nThreads];
+        final Exception[] failure = new Exception[1];
+        Thread[] workers = new Thread[nThreads];
+
+        for (int i = 0; i < nThreads; i++) {
+            final int worker = i;
+            threadSummaries[worker] = new TimerSummary(name + "-" + worker);
+
+            workers[worker] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        ready.countDown();
+                        start.await();
+
+                        for (int j = 0; j < nTests; j++) {
+                            SimpleMeter meter = experiment.run();
+
+                            if (meter != null) {//Failed experiments are reported by the tests
+                                threadSummaries[worker].addSimpleMeter(meter, inputBytes(baseInput));
+                            }
+                        }
+                    } catch (Exception ex) {
+                        synchronized (failure) {
+                            if (failure[0] == null) {
+                                failure[0] = ex;
+                            }
+                        }
+                    }
+                }
+            }, getClass().getSimpleName() + "-" + worker);
+
+            workers[worker].start();
+        }
+
+        ConcurrentSummary summary = new ConcurrentSummary(label(name));
+
+        try {
+            ready.await();
+            long startTime = System.nanoTime();
+            start.countDown();
+
+            for (Thread worker : workers) {
+                worker.join();
+            }
+
+            summary.setClockTime(System.nanoTime() - startTime);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the tests.", ex);
+        }
+
+        synchronized (failure) {
+            if (failure[0] != null) {
+                rethrow(failure[0]);
+            }
+        }
+
+        for (int i = 0; i < nThreads; i++) {
+            summary.addThreadSummary(threadSummaries[i], threadSummaries[i].getBytes());
+        }
+
+        return summary;
+    }
+
+    /**
+     * Rethrows an exception caught on a worker thread.
+     *
+     * @since 1.1
+     * @param ex Exception to rethrow.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    private static void rethrow(Exception ex)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        if (ex instanceof NoSuchProviderException) {
+            throw (NoSuchProviderException) ex;
+        } else if (ex instanceof NoSuchAlgorithmException) {
+            throw (NoSuchAlgorithmException) ex;
+        } else if (ex instanceof NoSuchPaddingException) {
+            throw (NoSuchPaddingException) ex;
+        } else if (ex instanceof InvalidKeyException) {
+            throw (InvalidKeyException) ex;
+        } else if (ex instanceof InvalidAlgorithmParameterException) {
+            throw (InvalidAlgorithmParameterException) ex;
+        } else if (ex instanceof RuntimeException) {
+            throw (RuntimeException) ex;
+        }
+        throw new IllegalStateException(ex);
+    }
+
+    /**
+     * Returns the default numbers of threads for scaling tests.
+     *
+     * <p>
+     * Powers of two up to the number of available processors, followed by the
+     * number of processors itself: 1, 2, 4, ..., cores.
+     * </p>
+     *
+     * @since 1.1
+     * @return Increasing numbers of threads.
+     */
+    public static int[] threadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> counts = new ArrayList<>();
+
+        for (int n = 1; n < cores; n *= 2) {
+            counts.add(n);
+        }
+        counts.add(cores);
+
+        int[] result = new int[counts.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the experiment for a test method.
+     *
+     * @since 1.1
+     * @param baseInput Input file to run the tests.
+     * @param algorithm Algorithm to be used.
+     * @param operation Operation to test.
+     * @param keySize Key size, or zero (or less) for the provider's default.
+     * @param provider Library from where the algorithm comes.
+     * @return An experiment calling the corresponding test method.
+     */
+    protected Experiment experiment(final File baseInput, final String algorithm, final Operation operation,
+            final int keySize, final String provider) {
+
+        return new Experiment() {
+
+            @Override
+            public SimpleMeter run() throws NoSuchProviderException, NoSuchAlgorithmException,
+                    NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException {
+
+                switch (operation) {
+                    case ENCRYPTION:
+                        return keySize > 0
+                                ? testEncryption(baseInput, algorithm, keySize, provider)
+                                : testEncryption(baseInput, algorithm, provider);
+                    case DECRYPTION:
+                        return keySize > 0
+                                ? testDecryption(baseInput, algorithm, keySize, provider)
+                                : testDecryption(baseInput, algorithm, provider);
+                    default:
+                        return keySize > 0
+                                ? test(baseInput, algorithm, keySize, provider)
+                                : test(baseInput, algorithm, provider);
+                }
+            }
+        };
+    }
+
+    /**
+     * Warms up an experiment, until steady state or budget exhaustion.
+     *
+     * <p>
+     * Unmeasured experiments are executed until the coefficient of variation
+     * (standard deviation divided by the mean) of the last clock times drops
+     * below the threshold, or the maximum number of iterations or time is
+     * reached. The number of warm-up iterations is recorded in the summary.
+     * </p>
+     *
+     * @since 1.1
+     * @param experiment Experiment to warm up.
+     * @param summary Summary to record the warm-up.
+     * @return Number of warm-up iterations executed.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    protected int warmUp(Experiment experiment, TimerSummary summary)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        if (warmUpWindow <= 0 || maxWarmUpIterations <= 0) {
+            return 0;
+        }
+
+        long[] window = new long[warmUpWindow];
+        long deadline = System.nanoTime() + maxWarmUpTime;
+        boolean steadyState = false;
+        int iterations = 0;
+
+        while (iterations < maxWarmUpIterations && System.nanoTime() - deadline < 0) {
+            SimpleMeter meter = experiment.run();
+
+            if (meter == null) {//Failed experiments are reported by the tests
+                break;
+            }
+
+            window[iterations % window.length] = meter.getClockTime();
+            iterations++;
+
+            if (iterations >= window.length && coefficientOfVariation(window) <= warmUpThreshold) {
+                steadyState = true;
+                break;
+            }
+        }
+
+        summary.setWarmUp(iterations, steadyState);
+        return iterations;
+    }
+
+    /**
+     * Computes the coefficient of variation for a set of values.
+     *
+     * @since 1.1
+     * @param values Values to evaluate.
+     * @return Standard deviation divided by the mean.
+     */
+    private static double coefficientOfVariation(long[] values) {
+        double mean = 0;
+        for (long value : values) {
+            mean += value;
+        }
+        mean /= values.length;
+
+        if (mean == 0) {
+            return 0;
+        }
+
+        double variance = 0;
+        for (long value : values) {
+            variance += (value - mean) * (value - mean);
+        }
+        variance /= values.length;
+
+        return Math.sqrt(variance) / mean;
+    }
+
+    /**
+     * Configures the warm-up stage, executed before the tests.
+     *
+     * @since 1.1
+     * @param window Number of consecutive experiments evaluated for steady
+     * state; zero disables the warm-up.
+     * @param threshold Coefficient of variation, among the window clock times,
+     * under which the steady state is considered reached.
+     * @param maxIterations Maximum number of warm-up experiments; zero
+     * disables the warm-up.
+     * @param maxTime Maximum time spent warming up.
+     * @param unit Unit for the maximum time.
+     */
+    public void setWarmUp(int window, double threshold, int maxIterations, long maxTime, TimeUnit unit) {
+        this.warmUpWindow = window;
+        this.warmUpThreshold = threshold;
+        this.maxWarmUpIterations = maxIterations;
+        this.maxWarmUpTime = unit.toNanos(maxTime);
+    }
+
+    /**
+     * Disables the warm-up stage.
+     *
+     * @since 1.1
+     */
+    public void disableWarmUp() {
+        setWarmUp(0, warmUpThreshold, 0, maxWarmUpTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Access the number of bytes processed at once by bulk tests.
+     *
+     * @since 1.1
+     * @return Chunk size in bytes, or zero for byte by byte stream processing.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Defines the number of bytes processed at once by bulk tests.
+     *
+     * <p>
+     * Testers supporting bulk processing drive their ciphers directly, one
+     * chunk at a time, with reusable buffers. With a zero chunk size, the
+     * default, data is processed byte by byte through cipher streams.
+     * </p>
+     *
+     * @since 1.1
+     * @param chunkSize Chunk size in bytes, or zero for byte by byte stream
+     * processing.
+     */
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Access the chunk size for bulk processing.
+     *
+     * @since 1.1
+     * @return The defined chunk size or, if none, {@link #DEFAULT_CHUNK_SIZE}.
+     */
+    protected int getBulkChunkSize() {
+        return chunkSize > 0 ? chunkSize : DEFAULT_CHUNK_SIZE;
+    }
+
+    /**
+     * Access how bulk tests access their input.
+     *
+     * @since 1.1
+     * @return The input mode.
+     */
+    public InputMode getInputMode() {
+        return inputMode;
+    }
+
+    /**
+     * Defines how bulk tests access their input.
+     *
+     * <p>
+     * With {@link InputMode#MAPPED}, the input file is mapped into memory and
+     * processed as direct buffers, one chunk at a time, through the
+     * ByteBuffer methods of the providers. With {@link InputMode#MEMORY}, the
+     * input file is loaded once, before any measurement, and processed from
+     * memory; measurements contain only cryptographic work. In both modes the
+     * chunk size is the defined one or, if none, {@link #DEFAULT_CHUNK_SIZE}.
+     * </p>
+     *
+     * <p>
+     * Summaries are labeled with the input mode, except for the default
+     * {@link InputMode#STREAM}, so results from different modes are never
+     * mistaken for one another.
+     * </p>
+     *
+     * @since 1.1
+     * @param inputMode The input mode.
+     */
+    public void setInputMode(InputMode inputMode) {
+        this.inputMode = inputMode;
+    }
+
+    /**
+     * Maps a file into memory, read only.
+     *
+     * <p>
+     * Files larger than a single mapping allows are mapped as consecutive
+     * regions of up to 1 GiB.
+     * </p>
+     *
+     * @since 1.1
+     * @param baseInput File to map.
+     * @return Mapped regions, in file order.
+     * @throws IOException If the file can not be mapped.
+     */
+    protected static ByteBuffer[] mapInput(File baseInput) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(baseInput, "r");
+                FileChannel channel = file.getChannel()) {
+
+            long size = channel.size();
+            ByteBuffer[] regions = new ByteBuffer[(int) ((size + MAX_MAPPING_SIZE - 1) / MAX_MAPPING_SIZE)];
+
+            for (int i = 0; i < regions.length; i++) {
+                long position = i * MAX_MAPPING_SIZE;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPING_SIZE, size - position));
+            }
+
+            return regions;
+        }
+    }
+
+    /**
+     * Loads a file into memory.
+     *
+     * <p>
+     * Every file is read only once; later calls, from any tester, return the
+     * same array, which must not be modified.
+     * </p>
+     *
+     * @since 1.1
+     * @param baseInput File to load.
+     * @return The file's content.
+     * @throws IOException If the file can not be read or is too large for an
+     * array.
+     */
+    protected static byte[] loadInput(File baseInput) throws IOException {
+        File key = baseInput.getAbsoluteFile();
+
+        synchronized (LOADED_INPUTS) {
+            byte[] content = LOADED_INPUTS.get(key);
+
+            if (content == null) {
+                if (key.length() > Integer.MAX_VALUE - 8) {
+                    throw new IOException("File too large to be loaded into memory: " + key);
+                }
+
+                content = Files.readAllBytes(key.toPath());
+                LOADED_INPUTS.put(key, content);
+            }
+
+            return content;
+        }
+    }
+
+    /**
+     * Access the input as buffers, in accordance with the input mode: mapped
+     * regions of the file or a buffer wrapping the file loaded into memory.
+     *
+     * @since 1.1
+     * @param baseInput Input file.
+     * @return Buffers with the file's content, in order.
+     * @throws IOException If the file can not be mapped or loaded.
+     */
+    protected ByteBuffer[] inputBuffers(File baseInput) throws IOException {
+        if (getInputMode() == InputMode.MEMORY) {
+            return new ByteBuffer[]{ByteBuffer.wrap(loadInput(baseInput))};
+        }
+
+        return mapInput(baseInput);
+    }
+
+    /**
+     * Labels a name with the input mode, if not the default one.
+     *
+     * @since 1.1
+     * @param name Name to label.
+     * @return The labeled name.
+     */
+    protected String label(String name) {
+        if (getInputMode() == InputMode.STREAM) {
+            return name;
+        }
+
+        return name + " [" + getInputMode().name().toLowerCase() + "]";
+    }
+
+    /**
+     * Returns the bytes processed by an experiment whose meter reports none.
+     *
+     * <p>
+     * Experiments are assumed to process the whole input file; testers whose
+     * experiments take no input return zero, so only operations are reported.
+     * </p>
+     *
+     * @since 1.1
+     * @param baseInput Input file.
+     * @return The input file's length.
+     */
+    protected long inputBytes(File baseInput) {
+        return baseInput.length();
+    }
+
+    /**
+     * Measures the processing of a file through a chain of ciphers, in
+     * accordance with the input mode and chunk size.
+     *
+     * <ul>
+     * <li>mapped input: the mapped file is processed as direct buffers;</li>
+     * <li>memory input: the loaded file is processed as arrays;</li>
+     * <li>stream input with a chunk size: chunks read from the file are
+     * processed as arrays;</li>
+     * <li>stream input without a chunk size: the file is read byte by byte
+     * through cipher streams.</li>
+     * </ul>
+     *
+     * @since 1.1
+     * @param baseInput Input file.
+     * @param meter Meter for the measurement, not yet started.
+     * @param ciphers Initialized ciphers, in processing order.
+     * @return The stopped meter, with the bytes processed and the bulk and
+     * final phases, or null if the processing failed.
+     */
+    protected SimpleMeter processCiphers(File baseInput, SimpleMeter meter, Cipher... ciphers) {
+        meter.endPhase();
+
+        try {
+            if (getInputMode() != InputMode.STREAM) {
+                ByteBuffer[] input = inputBuffers(baseInput);
+
+                CipherPipeline pipeline = CipherPipeline.forBuffers(input, getBulkChunkSize(), ciphers);
+
+                meter.start();
+                meter.phase(PHASE_BULK);
+                long bytes = pipeline.update(input);
+                meter.phase(PHASE_FINAL);
+                pipeline.doFinal();
+                meter.endPhase();
+                meter.stop();
+
+                meter.addBytes(bytes);
+                return meter;
+            }
+
+            try (InputStream input = new BufferedInputStream(new FileInputStream(baseInput))) {
+                if (getChunkSize() > 0) {
+                    CipherPipeline pipeline = new CipherPipeline(getChunkSize(), ciphers);
+
+                    meter.start();
+                    meter.phase(PHASE_BULK);
+                    long bytes = pipeline.update(input);
+                    meter.phase(PHASE_FINAL);
+                    pipeline.doFinal();
+                    meter.endPhase();
+                    meter.stop();
+
+                    meter.addBytes(bytes);
+                } else {
+                    InputStream stream = input;
+                    for (Cipher cipher : ciphers) {
+                        stream = new CipherInputStream(stream, cipher);
+                    }
+
+                    meter.start();
+                    meter.phase(PHASE_BULK);
+                    while (stream.read() > -1);
+                    meter.phase(PHASE_FINAL);
+                    stream.close();//End all encryption and decryption operation
+                    meter.endPhase();
+                    meter.stop();
+
+                    meter.addBytes(baseInput.length());
+                }
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Creates an empty summary, with a sample recorder attached if raw
+     * measurements are to be exported.
+     *
+     * @since 1.1
+     * @param name Summary's name.
+     * @return A new summary.
+     */
+    protected TimerSummary createSummary(String name) {
+        TimerSummary summary = new TimerSummary(label(name));
+
+        if (getSamplesDirectory() != null) {
+            summary.setSampleRecorder(new SampleRecorder());
+        }
+
+        return summary;
+    }
+
+    /**
+     * Prints a summary into the results destination and exports its raw
+     * measurements, if any were recorded.
+     *
+     * <p>
+     * Raw measurements are written into the samples directory, on a file named
+     * after the summary.
+     * </p>
+     *
+     * @since 1.1
+     * @param summary Summary to report.
+     * @param out Results destination.
+     */
+    protected void report(TimerSummary summary, PrintStream out) {
+        summary.print(out);
+        out.println();
+
+        if (getSamplesDirectory() == null || summary.getSampleRecorder() == null) {
+            return;
+        }
+
+        getSamplesDirectory().mkdirs();
+        File samplesFile = new File(getSamplesDirectory(), summary.getName().replaceAll("[\\\\/:*?\"<>|]", "_") + ".txt");
+
+        try (PrintStream samplesOut = new PrintStream(samplesFile)) {
+            samplesOut.println(summary.getName());
+            summary.getSampleRecorder().print(samplesOut);
+        } catch (FileNotFoundException ex) {
+            Logger.getLogger(TimeTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Access the destination for the raw measurements.
+     *
+     * @since 1.1
+     * @return Samples directory, or null if raw measurements are not exported.
+     */
+    public File getSamplesDirectory() {
+        return samplesDirectory;
+    }
+
+    /**
+     * Defines where the raw measurements of every experiment are exported.
+     *
+     * <p>
+     * When defined, every experiment is recorded (clock, CPU, user and system
+     * times and bytes processed) and exported along with the summary, one file
+     * per summary.
+     * </p>
+     *
+     * @since 1.1
+     * @param samplesDirectory Destination directory, or null to disable
+     * recording.
+     */
+    public void setSamplesDirectory(File samplesDirectory) {
+        this.samplesDirectory = samplesDirectory;
+    }
+
     /**
      * Test the specified scheme.
      *
@@ -0,0 +1,326 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.Algorithms;
+import crypto.performance.Libraries;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import performance.TimerSummary;
+
+/**
+ * Test and measure performance for authenticated encryption (AEAD): AES on
+ * GCM, CCM and EAX, and ChaCha20-Poly1305.
+ *
+ * <p>
+ * Messages are processed as in {@link SmallMessageTester}, with additional
+ * authenticated data (AAD) given to every message after its init, and a
+ * configurable tag length. Decryption verifies the tag before releasing the
+ * plain text, so decryption tests measure the verify-then-decrypt path.
+ * </p>
+ *
+ * <p>
+ * Not every provider offers every scheme: FlexiCore has none of them; SunJCE
+ * has GCM and, from JDK 11 onwards, ChaCha20-Poly1305; Bouncy Castle has GCM,
+ * CCM and EAX.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class AeadCipherTester extends SmallMessageTester {
+
+    /**
+     * Authentication tag length in bits.
+     *
+     * @since 1.0
+     */
+    private int tagLength = 128;
+
+    /**
+     * Additional authenticated data, given to every message.
+     *
+     * @since 1.0
+     */
+    private byte[] aad = new byte[0];
+
+    /**
+     * Executes the default test: AES on GCM, CCM and EAX, and
+     * ChaCha20-Poly1305, for 1 KiB messages, encryption and decryption, for
+     * each AAD size and tag length. ChaCha20-Poly1305 is skipped when the
+     * running JDK does not offer it.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/aead.txt");
+        int nTests = 10;
+        int[] aadSizes = aadSizes();
+        int[] tagLengths = tagLengths();
+
+        AeadCipherTester aeadTester = new AeadCipherTester();
+        aeadTester.setMessageSize(1024);
+
+        System.out.println("Evaluating authenticated encryption...");
+
+        aeadTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            for (Operation operation : new Operation[]{Operation.ENCRYPTION, Operation.DECRYPTION}) {
+                //AES GCM
+                aeadTester.execAeadSweep(nTests, aadSizes, tagLengths, file, out, "AES/GCM/NoPadding",
+                        operation, new String[]{"BC", "SunJCE"});
+                //AES CCM
+                aeadTester.execAeadSweep(nTests, aadSizes, tagLengths, file, out, "AES/CCM/NoPadding",
+                        operation, new String[]{"BC"});
+                //AES EAX
+                aeadTester.execAeadSweep(nTests, aadSizes, tagLengths, file, out, "AES/EAX/NoPadding",
+                        operation, new String[]{"BC"});
+                //ChaCha20-Poly1305, fixed tag, JDK 11 onwards
+                aeadTester.execAeadSweep(nTests, aadSizes, new int[]{128}, file, out, "ChaCha20-Poly1305",
+                        operation, Algorithms.providers("Cipher", "ChaCha20-Poly1305", "SunJCE"));
+            }
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(AeadCipherTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Returns the default AAD sizes.
+     *
+     * @since 1.0
+     * @return AAD sizes from none to 1 KiB.
+     */
+    public static int[] aadSizes() {
+        return new int[]{0, 16, 64, 256, 1024};
+    }
+
+    /**
+     * Returns the default tag lengths.
+     *
+     * @since 1.0
+     * @return Tag lengths, in bits, accepted by GCM, CCM and EAX on all
+     * providers.
+     */
+    public static int[] tagLengths() {
+        return new int[]{96, 112, 128};
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each tag length and AAD size.
+     *
+     * <p>
+     * After the summaries of each provider, the operations per second, the
+     * throughput and the latency percentiles for each tag length and AAD size
+     * are reported. The tag length and AAD in use before the sweep are
+     * restored at the end.
+     * </p>
+     *
+     * @since 1.0
+     * @param nTests Number of tests to run.
+     * @param aadSizes AAD sizes, in bytes.
+     * @param tagLengths Tag lengths, in bits.
+     * @param baseInput Input file, from where messages are cut.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param operation Operation to test.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see #aadSizes()
+     * @see #tagLengths()
+     */
+    public void execAeadSweep(int nTests, int[] aadSizes, int[] tagLengths, File baseInput, PrintStream out,
+            String algorithm, Operation operation, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        if (!isAuthenticated(algorithm)) {
+            throw new NoSuchAlgorithmException("Not an authenticated encryption scheme: " + algorithm);
+        }
+
+        int previousTagLength = getTagLength();
+        int previousAadSize = getAadSize();
+
+        try {
+            for (String provider : providers) {
+                String name = algorithm + "-" + provider + "-" + operation.name().toLowerCase();
+                Experiment experiment = experiment(baseInput, algorithm, operation, 0, provider);
+                TimerSummary[] summaries = new TimerSummary[tagLengths.length * aadSizes.length];
+
+                for (int i = 0; i < tagLengths.length; i++) {
+                    setTagLength(tagLengths[i]);
+
+                    for (int j = 0; j < aadSizes.length; j++) {
+                        setAadSize(aadSizes[j]);
+
+                        TimerSummary summary = execTests(nTests, baseInput,
+                                name + "-" + tagLengths[i] + "b tag-" + aadSizes[j] + "B AAD", experiment);
+                        report(summary, out);
+                        summaries[i * aadSizes.length + j] = summary;
+                    }
+                }
+
+                out.println(label(name) + " AEAD");
+                out.println(String.format("%10s\t%10s\t%12s\t%10s\t%10s\t%10s\t%10s\t%s",
+                        "Tag", "AAD", "ops/s", "MB/s", "p50", "p99", "p99.9",
+                        TimeUnit.MICROSECONDS.name() + "/operation"));
+                for (int i = 0; i < summaries.length; i++) {
+                    TimerSummary summary = summaries[i];
+
+                    out.println(String.format("%10d\t%10d\t%12.2f\t%10.2f\t%10.2f\t%10.2f\t%10.2f",
+                            tagLengths[i / aadSizes.length],
+                            aadSizes[i % aadSizes.length],
+                            summary.getOperationsPerSecond(),
+                            summary.getThroughput(),
+                            summary.getLatencies().getPercentile(50, TimeUnit.MICROSECONDS),
+                            summary.getLatencies().getPercentile(99, TimeUnit.MICROSECONDS),
+                            summary.getLatencies().getPercentile(99.9, TimeUnit.MICROSECONDS)));
+                }
+                out.println();
+            }
+        } finally {
+            setTagLength(previousTagLength);
+            setAadSize(previousAadSize);
+        }
+    }
+
+    /**
+     * Generates the parameters for the messages of one experiment, with the
+     * configured tag length.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param cipher Cipher instance for the algorithm.
+     * @param randGenerator Source for the IVs.
+     * @return Parameters for each message.
+     */
+    @Override
+    protected AlgorithmParameterSpec[] messageParameters(String algorithm, Cipher cipher,
+            SecureRandom randGenerator) {
+        return parameterSpecs(algorithm, cipher, getNMessages(), randGenerator, tagLength);
+    }
+
+    /**
+     * Initializes a cipher for one message, followed by its AAD.
+     *
+     * @since 1.0
+     * @param cipher Cipher to initialize.
+     * @param mode Cipher mode.
+     * @param key Key to use.
+     * @param parameters Parameters, or null for none.
+     * @throws InvalidKeyException
+     * @throws InvalidAlgorithmParameterException
+     */
+    @Override
+    protected void initMessage(Cipher cipher, int mode, SecretKey key, AlgorithmParameterSpec parameters)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        super.initMessage(cipher, mode, key, parameters);
+
+        if (aad.length > 0) {
+            cipher.updateAAD(aad);
+        }
+    }
+
+    /**
+     * Access the tag length.
+     *
+     * @since 1.0
+     * @return Authentication tag length in bits.
+     */
+    public int getTagLength() {
+        return tagLength;
+    }
+
+    /**
+     * Defines the tag length.
+     *
+     * <p>
+     * Ignored by ChaCha20-Poly1305, which has a fixed 128 bit tag.
+     * </p>
+     *
+     * @since 1.0
+     * @param tagLength Authentication tag length in bits.
+     */
+    public void setTagLength(int tagLength) {
+        if (tagLength <= 0 || tagLength % 8 != 0) {
+            throw new IllegalArgumentException("Invalid tag length: " + tagLength);
+        }
+        this.tagLength = tagLength;
+    }
+
+    /**
+     * Access the AAD size.
+     *
+     * @since 1.0
+     * @return AAD size in bytes.
+     */
+    public int getAadSize() {
+        return aad.length;
+    }
+
+    /**
+     * Defines the AAD size; new random AAD is generated.
+     *
+     * @since 1.0
+     * @param aadSize AAD size in bytes, zero for none.
+     */
+    public void setAadSize(int aadSize) {
+        if (aadSize < 0) {
+            throw new IllegalArgumentException("Invalid AAD size: " + aadSize);
+        }
+        aad = new byte[aadSize];
+        new SecureRandom().nextBytes(aad);
+    }
+}
@@ -26,6 +26,7 @@
  */
 package crypto.performance.testers;
 
+import crypto.performance.KeyPool;
 import crypto.performance.Libraries;
 import crypto.performance.TimeTester;
 import java.io.BufferedInputStream;
@@ -34,11 +35,13 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
 import java.security.PrivateKey;
@@ -47,17 +50,86 @@ import java.security.SecureRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 import performance.SimpleMeter;
 
 /**
  * Test and measure performance for asymmetric ciphers.
  *
+ * <p>
+ * Key pairs are drawn from a {@link KeyPool}, so they are generated once per
+ * algorithm, key size and provider, instead of once per experiment.
+ * </p>
+ *
+ * <p>
+ * In hybrid mode, the file is processed as an envelope instead of as 126 byte
+ * blocks: a fresh AES key is wrapped with the asymmetric cipher (RSA-OAEP or
+ * ECIES) and the payload is encrypted with AES/GCM. Inside the measured
+ * time, the symmetric key generation, wrap, symmetric cipher initialization,
+ * bulk, final and unwrap are reported as separate phases (sessionkey, wrap,
+ * bulkinit, bulk, final and unwrap), apart from the setup phases recorded
+ * before measuring.
+ * </p>
+ *
  * @author Victor de Lima Soares
- * @version 1.0
+ * @version 1.1
  */
 public class AsymmetricCipherTester extends TimeTester {
 
+    /**
+     * Source of key pairs.
+     *
+     * @since 1.1
+     */
+    private KeyPool keyPool = new KeyPool();
+
+    /**
+     * Phase for wrapping the symmetric key, in hybrid mode.
+     *
+     * @since 1.1
+     */
+    public static final String PHASE_WRAP = "wrap";
+
+    /**
+     * Phase for unwrapping the symmetric key, in hybrid mode.
+     *
+     * @since 1.1
+     */
+    public static final String PHASE_UNWRAP = "unwrap";
+
+    /**
+     * Phase for generating the symmetric key, in hybrid mode.
+     *
+     * @since 1.1
+     */
+    public static final String PHASE_SESSION_KEY = "sessionkey";
+
+    /**
+     * Phase for initializing the symmetric cipher, in hybrid mode.
+     *
+     * @since 1.1
+     */
+    public static final String PHASE_BULK_INIT = "bulkinit";
+
+    /**
+     * Symmetric cipher for the payload, in hybrid mode.
+     *
+     * @since 1.1
+     */
+    public static final String HYBRID_BULK_ALGORITHM = "AES/GCM/NoPadding";
+
+    /**
+     * If the file is processed as an envelope: a wrapped symmetric key and the
+     * payload encrypted with it.
+     *
+     * @since 1.1
+     */
+    private boolean hybrid = false;
+
     /**
      * Executes the default test: RSA, ECIES.
      *
@@ -84,6 +156,8 @@ public class AsymmetricCipherTester extends TimeTester {
 
         System.out.println("Evaluating asymmetric ciphers...");
 
+        asymTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
         try (PrintStream out = new PrintStream(results)) {
 
             //RSA - PKCS1Padding
@@ -150,6 +224,8 @@ public class AsymmetricCipherTester extends TimeTester {
             System.out.println("Evaluating asymmetric ciphers (decryption):...");
         }
 
+        asymTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
         try (PrintStream out = new PrintStream(results)) {
 
             //RSA - PKCS1Padding
@@ -175,6 +251,53 @@ public class AsymmetricCipherTester extends TimeTester {
         System.out.println("Done.");
     }
 
+    /**
+     * Executes the default test in hybrid mode: RSA-OAEP and ECIES wrapping an
+     * AES key, with the payload on AES/GCM, for encryption and decryption.
+     *
+     * @since 1.1
+     */
+    public static void runHybrid() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/hybrid encryption.txt");
+        int nTests = 10;
+
+        AsymmetricCipherTester asymTester = new AsymmetricCipherTester();
+        asymTester.setHybrid(true);
+
+        //Libraries
+        String[] providers;
+
+        System.out.println("Evaluating hybrid encryption...");
+
+        asymTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            for (boolean encryptDecrypt : new boolean[]{true, false}) {
+                //RSA - OAEPWithSHA1AndMGF1Padding
+                providers = new String[]{"BC", "FlexiCore", "SunJCE"};
+                asymTester.execTests(nTests, file, out, "RSA/ECB/OAEPWithSHA1AndMGF1Padding", encryptDecrypt, 2048, providers);
+                asymTester.execTests(nTests, file, out, "RSA/ECB/OAEPWithSHA1AndMGF1Padding", encryptDecrypt, 3072, providers);
+                //RSA - OAEPWithSHA-256AndMGF1Padding
+                providers = new String[]{"BC", "FlexiCore", "SunJCE"};
+                asymTester.execTests(nTests, file, out, "RSA/ECB/OAEPWithSHA-256AndMGF1Padding", encryptDecrypt, 2048, providers);
+                asymTester.execTests(nTests, file, out, "RSA/ECB/OAEPWithSHA-256AndMGF1Padding", encryptDecrypt, 3072, providers);
+                //ECIES
+                providers = new String[]{"BC", "FlexiEC"};
+                asymTester.execTests(nTests, file, out, "ECIES", encryptDecrypt, 256, providers);
+            }
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(AsymmetricCipherTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
     /**
      * Test the specified scheme.
      *
@@ -218,29 +341,33 @@ public class AsymmetricCipherTester extends TimeTester {
             throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
             InvalidKeyException, InvalidAlgorithmParameterException {
 
+        if (hybrid) {
+            return testHybrid(baseInput, algorithm, keySize, provider, Operation.ENCRYPTION_DECRYPTION);
+        }
+
         Cipher cipherEncryption;
         Cipher cipherDecription;
         SimpleMeter meter = new SimpleMeter();
 
-        SecureRandom randGenerator = new SecureRandom();
-        KeyPairGenerator generator;
-
-        if (provider.equals("SunJCE") && algorithm.split("/")[0].equals("RSA")) {
-            generator = KeyPairGenerator.getInstance(algorithm.split("/")[0], "SunRsaSign");
-        } else {
-            generator = KeyPairGenerator.getInstance(algorithm.split("/")[0], provider);
-        }
-
-        generator.initialize(keySize, randGenerator);
-        KeyPair key = generator.generateKeyPair();
+        meter.phase(PHASE_KEYGEN);
+        KeyPair key = keyPair(algorithm, keySize, provider);
         PrivateKey privKey = key.getPrivate();
         PublicKey pubKey = key.getPublic();
 
+        meter.phase(PHASE_LOOKUP);
         cipherEncryption = Cipher.getInstance(algorithm, provider);
+        meter.phase(PHASE_INIT);
         cipherEncryption.init(Cipher.ENCRYPT_MODE, pubKey);
 
+        meter.phase(PHASE_LOOKUP);
         cipherDecription = Cipher.getInstance(algorithm, provider);
+        meter.phase(PHASE_INIT);
         cipherDecription.init(Cipher.DECRYPT_MODE, privKey);
+        meter.endPhase();
+
+        if (getInputMode() != InputMode.STREAM) {
+            return processBufferedBlocks(baseInput, meter, cipherEncryption, cipherDecription);
+        }
 
         byte inputBuffer[] = new byte[126];
 
@@ -249,14 +376,22 @@ public class AsymmetricCipherTester extends TimeTester {
 
         try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(baseInput))) {
 
+            long nBlocks = 0;
+
             meter.start();
+            meter.phase(PHASE_BULK);
 
             while ((lenght = input.read(inputBuffer)) > -1) {
                 bufferTmp = cipherEncryption.doFinal(inputBuffer, 0, lenght);
                 cipherDecription.doFinal(bufferTmp);
+                nBlocks++;
             }
 
+            meter.endPhase();
             meter.stop();
+
+            meter.addBytes(baseInput.length());
+            meter.addOperations(nBlocks);
         } catch (Exception ex) {
             ex.printStackTrace();
             meter = null;
@@ -267,25 +402,27 @@ public class AsymmetricCipherTester extends TimeTester {
 
     @Override
     public SimpleMeter testEncryption(File baseInput, String algorithm, int keySize, String provider) throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException {
+        if (hybrid) {
+            return testHybrid(baseInput, algorithm, keySize, provider, Operation.ENCRYPTION);
+        }
+
         Cipher cipherEncryption;
 
         SimpleMeter meter = new SimpleMeter();
 
-        SecureRandom randGenerator = new SecureRandom();
-        KeyPairGenerator generator;
-
-        if (provider.equals("SunJCE") && algorithm.split("/")[0].equals("RSA")) {
-            generator = KeyPairGenerator.getInstance(algorithm.split("/")[0], "SunRsaSign");
-        } else {
-            generator = KeyPairGenerator.getInstance(algorithm.split("/")[0], provider);
-        }
-
-        generator.initialize(keySize, randGenerator);
-        KeyPair key = generator.generateKeyPair();
+        meter.phase(PHASE_KEYGEN);
+        KeyPair key = keyPair(algorithm, keySize, provider);
         PublicKey pubKey = key.getPublic();
 
+        meter.phase(PHASE_LOOKUP);
         cipherEncryption = Cipher.getInstance(algorithm, provider);
+        meter.phase(PHASE_INIT);
         cipherEncryption.init(Cipher.ENCRYPT_MODE, pubKey);
+        meter.endPhase();
+
+        if (getInputMode() != InputMode.STREAM) {
+            return processBufferedBlocks(baseInput, meter, cipherEncryption);
+        }
 
         byte inputBuffer[] = new byte[126];
 
@@ -293,13 +430,359 @@ public class AsymmetricCipherTester extends TimeTester {
 
         try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(baseInput))) {
 
+            long nBlocks = 0;
+
             meter.start();
+            meter.phase(PHASE_BULK);
 
             while ((lenght = input.read(inputBuffer)) > -1) {
                 cipherEncryption.doFinal(inputBuffer, 0, lenght);
+                nBlocks++;
             }
 
+            meter.endPhase();
             meter.stop();
+
+            meter.addBytes(baseInput.length());
+            meter.addOperations(nBlocks);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Test the specified scheme in hybrid mode, processing the file as one
+     * envelope.
+     *
+     * <p>
+     * Encryption generates a fresh AES key, wraps it with the public key and
+     * encrypts the payload with AES/GCM; decryption unwraps the key with the
+     * private key and decrypts the payload, verifying its tag. For
+     * decryption only, the envelope is prepared before measuring. The payload
+     * is loaded into memory before measuring, and processed in chunks of the
+     * tester's chunk size.
+     * </p>
+     *
+     * @since 1.1
+     * @param baseInput Input file to run the tests.
+     * @param algorithm Asymmetric algorithm, used to wrap the key.
+     * @param keySize Key size.
+     * @param provider Library from where the algorithm comes.
+     * @param operation Operation to test.
+     * @return A SimpleMeter containing the time measurements, or null if the
+     * test failed.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidKeyException
+     */
+    protected SimpleMeter testHybrid(File baseInput, String algorithm, int keySize, String provider,
+            Operation operation)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException {
+
+        SimpleMeter meter = new SimpleMeter();
+
+        meter.phase(PHASE_KEYGEN);
+        KeyPair key = keyPair(algorithm, keySize, provider);
+
+        meter.phase(PHASE_LOOKUP);
+        Cipher wrapper = Cipher.getInstance(algorithm, provider);
+        Cipher unwrapper = Cipher.getInstance(algorithm, provider);
+        Cipher bulkEncryption = bulkCipher(provider);
+        Cipher bulkDecryption = bulkCipher(provider);
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES", bulkEncryption.getProvider());
+
+        meter.phase(PHASE_INIT);
+        keyGenerator.init(128);
+        wrapper.init(Cipher.ENCRYPT_MODE, key.getPublic());
+        unwrapper.init(Cipher.DECRYPT_MODE, key.getPrivate());
+        meter.endPhase();
+
+        try {
+            byte[] payload = loadInput(baseInput);
+            byte[] iv = new byte[12];
+            new SecureRandom().nextBytes(iv);
+            GCMParameterSpec parameters = new GCMParameterSpec(128, iv);
+
+            byte[] cipherText = new byte[payload.length + parameters.getTLen() / 8];
+            byte[] plainText = new byte[payload.length];
+            byte[] wrappedKey = null;
+
+            if (operation == Operation.DECRYPTION) {
+                wrappedKey = seal(payload, cipherText, keyGenerator, wrapper, bulkEncryption, parameters, null);
+            }
+
+            meter.start();
+
+            if (operation != Operation.DECRYPTION) {
+                wrappedKey = seal(payload, cipherText, keyGenerator, wrapper, bulkEncryption, parameters, meter);
+            }
+            if (operation != Operation.ENCRYPTION) {
+                open(wrappedKey, cipherText, plainText, unwrapper, bulkDecryption, parameters, meter);
+            }
+
+            meter.endPhase();
+            meter.stop();
+
+            meter.addBytes(payload.length);
+            meter.addOperations(1);
+        } catch (IOException | GeneralSecurityException ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Encrypts a payload as an envelope: a fresh symmetric key, wrapped, and
+     * the payload encrypted with it.
+     *
+     * @since 1.1
+     * @param payload Plain text.
+     * @param cipherText Destination for the cipher text, with the tag.
+     * @param keyGenerator Generator for the symmetric key.
+     * @param wrapper Asymmetric cipher, initialized for encryption.
+     * @param bulk Symmetric cipher.
+     * @param parameters Parameters for the symmetric cipher.
+     * @param meter Meter for the phases, or null.
+     * @return The wrapped key.
+     * @throws GeneralSecurityException
+     */
+    private byte[] seal(byte[] payload, byte[] cipherText, KeyGenerator keyGenerator, Cipher wrapper,
+            Cipher bulk, GCMParameterSpec parameters, SimpleMeter meter) throws GeneralSecurityException {
+
+        phase(meter, PHASE_SESSION_KEY);
+        SecretKey secretKey = keyGenerator.generateKey();
+
+        phase(meter, PHASE_WRAP);
+        byte[] wrappedKey = wrapper.doFinal(secretKey.getEncoded());
+
+        phase(meter, PHASE_BULK_INIT);
+        bulk.init(Cipher.ENCRYPT_MODE, secretKey, parameters);
+
+        process(payload, payload.length, cipherText, bulk, meter);
+
+        return wrappedKey;
+    }
+
+    /**
+     * Decrypts an envelope: unwraps the symmetric key and decrypts the
+     * payload, verifying its tag.
+     *
+     * @since 1.1
+     * @param wrappedKey Wrapped symmetric key.
+     * @param cipherText Cipher text, with the tag.
+     * @param plainText Destination for the plain text.
+     * @param unwrapper Asymmetric cipher, initialized for decryption.
+     * @param bulk Symmetric cipher.
+     * @param parameters Parameters for the symmetric cipher.
+     * @param meter Meter for the phases, or null.
+     * @throws GeneralSecurityException
+     */
+    private void open(byte[] wrappedKey, byte[] cipherText, byte[] plainText, Cipher unwrapper,
+            Cipher bulk, GCMParameterSpec parameters, SimpleMeter meter) throws GeneralSecurityException {
+
+        phase(meter, PHASE_UNWRAP);
+        SecretKey secretKey = new SecretKeySpec(unwrapper.doFinal(wrappedKey), "AES");
+
+        phase(meter, PHASE_BULK_INIT);
+        bulk.init(Cipher.DECRYPT_MODE, secretKey, parameters);
+
+        process(cipherText, cipherText.length, plainText, bulk, meter);
+    }
+
+    /**
+     * Processes an input through an initialized cipher, in chunks of the
+     * tester's chunk size, followed by the final block.
+     *
+     * @since 1.1
+     * @param input Input.
+     * @param length Input length.
+     * @param output Destination, large enough for the whole output.
+     * @param cipher Initialized cipher.
+     * @param meter Meter for the phases, or null.
+     * @throws GeneralSecurityException
+     */
+    private void process(byte[] input, int length, byte[] output, Cipher cipher, SimpleMeter meter)
+            throws GeneralSecurityException {
+
+        int chunkSize = getBulkChunkSize();
+        int position = 0;
+
+        phase(meter, PHASE_BULK);
+        for (int offset = 0; offset < length; offset += chunkSize) {
+            position += cipher.update(input, offset, Math.min(chunkSize, length - offset), output, position);
+        }
+
+        phase(meter, PHASE_FINAL);
+        cipher.doFinal(output, position);
+    }
+
+    /**
+     * Starts a phase, if there is a meter.
+     *
+     * @since 1.1
+     * @param meter Meter, or null.
+     * @param name Phase name.
+     */
+    private static void phase(SimpleMeter meter, String name) {
+        if (meter != null) {
+            meter.phase(name);
+        }
+    }
+
+    /**
+     * Creates the symmetric cipher for hybrid mode, from the provider, or
+     * from SunJCE when the provider does not offer it (FlexiCore, FlexiEC).
+     *
+     * @since 1.1
+     * @param provider Library from where the asymmetric algorithm comes.
+     * @return A new cipher for {@link #HYBRID_BULK_ALGORITHM}.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     */
+    protected static Cipher bulkCipher(String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException {
+        try {
+            return Cipher.getInstance(HYBRID_BULK_ALGORITHM, provider);
+        } catch (NoSuchAlgorithmException ex) {
+            return Cipher.getInstance(HYBRID_BULK_ALGORITHM, "SunJCE");
+        }
+    }
+
+    /**
+     * Takes a key pair for an algorithm from the key pool.
+     *
+     * <p>
+     * SunJCE has RSA ciphers, but RSA keys come from SunRsaSign.
+     * </p>
+     *
+     * @since 1.1
+     * @param algorithm Algorithm to be used.
+     * @param keySize Key size.
+     * @param provider Library from where the algorithm comes.
+     * @return A key pair.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     */
+    protected KeyPair keyPair(String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException {
+
+        String keyAlgorithm = algorithm.split("/")[0];
+
+        if (provider.equals("SunJCE") && keyAlgorithm.equals("RSA")) {
+            return keyPool.take(keyAlgorithm, keySize, "SunRsaSign");
+        }
+        return keyPool.take(keyAlgorithm, keySize, provider);
+    }
+
+    /**
+     * Access the source of key pairs.
+     *
+     * @since 1.1
+     * @return Key pool.
+     */
+    public KeyPool getKeyPool() {
+        return keyPool;
+    }
+
+    /**
+     * Defines the source of key pairs.
+     *
+     * @since 1.1
+     * @param keyPool Key pool.
+     */
+    public void setKeyPool(KeyPool keyPool) {
+        this.keyPool = keyPool;
+    }
+
+    /**
+     * Access the hybrid mode.
+     *
+     * @since 1.1
+     * @return If the file is processed as an envelope.
+     */
+    public boolean isHybrid() {
+        return hybrid;
+    }
+
+    /**
+     * Defines the hybrid mode.
+     *
+     * @since 1.1
+     * @param hybrid If the file is to be processed as an envelope: a wrapped
+     * AES key and the payload on AES/GCM.
+     */
+    public void setHybrid(boolean hybrid) {
+        this.hybrid = hybrid;
+    }
+
+    /**
+     * Measures the processing of a mapped or loaded file through a chain of
+     * ciphers, as 126 byte blocks, using the ByteBuffer methods of the
+     * ciphers.
+     *
+     * @since 1.1
+     * @param baseInput Input file.
+     * @param meter Meter for the measurement, not yet started.
+     * @param ciphers Initialized ciphers, in processing order.
+     * @return The stopped meter, with the bytes and blocks processed, or null
+     * if the processing failed.
+     */
+    private SimpleMeter processBufferedBlocks(File baseInput, SimpleMeter meter, Cipher... ciphers) {
+        meter.endPhase();
+
+        try {
+            ByteBuffer[] input = inputBuffers(baseInput);
+            ByteBuffer[] outputs = new ByteBuffer[ciphers.length];
+
+            int size = 126;
+            for (int i = 0; i < ciphers.length; i++) {
+                size = ciphers[i].getOutputSize(size);
+                outputs[i] = ByteBuffer.allocateDirect(size);
+            }
+
+            long bytes = 0;
+            long nBlocks = 0;
+
+            meter.start();
+            meter.phase(PHASE_BULK);
+
+            for (ByteBuffer region : input) {
+                bytes += region.remaining();
+
+                ByteBuffer block = region.duplicate();
+
+                while (region.hasRemaining()) {
+                    block.limit(Math.min(region.position() + 126, region.limit()));
+                    block.position(region.position());
+                    region.position(block.limit());
+
+                    ByteBuffer data = block;
+                    for (int i = 0; i < ciphers.length; i++) {
+                        outputs[i].clear();
+                        ciphers[i].doFinal(data, outputs[i]);
+                        outputs[i].flip();
+                        data = outputs[i];
+                    }
+                    nBlocks++;
+                }
+            }
+
+            meter.endPhase();
+            meter.stop();
+
+            meter.addBytes(bytes);
+            meter.addOperations(nBlocks);
         } catch (Exception ex) {
             ex.printStackTrace();
             meter = null;
@@ -310,7 +793,8 @@ public class AsymmetricCipherTester extends TimeTester {
 
     /**
      * Instable.
-     * Works fine for RSA, but needs adjustments for EC.
+     * Works fine for RSA, but needs adjustments for EC; hybrid mode works for
+     * both.
      * @param baseInput
      * @param algorithm
      * @param keySize
@@ -325,29 +809,29 @@ public class AsymmetricCipherTester extends TimeTester {
     @Deprecated
     @Override
     public SimpleMeter testDecryption(File baseInput, String algorithm, int keySize, String provider) throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException {
+        if (hybrid) {
+            return testHybrid(baseInput, algorithm, keySize, provider, Operation.DECRYPTION);
+        }
+
         Cipher cipherEncryption;
         Cipher cipherDecription;
         SimpleMeter meter = new SimpleMeter();
 
-        SecureRandom randGenerator = new SecureRandom();
-        KeyPairGenerator generator;
-
-        if (provider.equals("SunJCE") && algorithm.split("/")[0].equals("RSA")) {
-            generator = KeyPairGenerator.getInstance(algorithm.split("/")[0], "SunRsaSign");
-        } else {
-            generator = KeyPairGenerator.getInstance(algorithm.split("/")[0], provider);
-        }
-
-        generator.initialize(keySize, randGenerator);
-        KeyPair key = generator.generateKeyPair();
+        meter.phase(PHASE_KEYGEN);
+        KeyPair key = keyPair(algorithm, keySize, provider);
         PrivateKey privKey = key.getPrivate();
         PublicKey pubKey = key.getPublic();
 
+        meter.phase(PHASE_LOOKUP);
         cipherEncryption = Cipher.getInstance(algorithm, provider);
+        meter.phase(PHASE_INIT);
         cipherEncryption.init(Cipher.ENCRYPT_MODE, pubKey);
 
+        meter.phase(PHASE_LOOKUP);
         cipherDecription = Cipher.getInstance(algorithm, provider);
+        meter.phase(PHASE_INIT);
         cipherDecription.init(Cipher.DECRYPT_MODE, privKey);
+        meter.endPhase();
 
         byte inputBuffer[] = new byte[126];
         byte outputBuffer[] = null;
@@ -372,14 +856,22 @@ public class AsymmetricCipherTester extends TimeTester {
         //Decription operations
         try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(tmp))) {
 
+            long nBlocks = 0;
+
             meter.start();
+            meter.phase(PHASE_BULK);
 
             while ((lenght = input.read(inputBuffer)) > -1) {
                 cipherDecription.doFinal(inputBuffer, 0, lenght);
+                nBlocks++;
             }
 
+            meter.endPhase();
             meter.stop();
 
+            meter.addBytes(tmp.length());
+            meter.addOperations(nBlocks);
+
         } catch (Exception ex) {
             ex.printStackTrace();
             meter = null;
@@ -28,9 +28,8 @@ package crypto.performance.testers;
 
 import crypto.performance.Libraries;
 import crypto.performance.TimeTester;
-import java.io.BufferedInputStream;
+import crypto.performance.TimeTester.Operation;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.security.InvalidAlgorithmParameterException;
@@ -41,7 +40,6 @@ import java.security.SecureRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.crypto.Cipher;
-import javax.crypto.CipherInputStream;
 import javax.crypto.KeyGenerator;
 import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
@@ -76,6 +74,8 @@ public class BlockCipherTester extends TimeTester {
 
         System.out.println("Evaluating block ciphers...");
 
+        blockTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
         try (PrintStream out = new PrintStream(results)) {
 
             //3DES
@@ -118,6 +118,8 @@ public class BlockCipherTester extends TimeTester {
             System.out.println("Evaluating block ciphers (decryption)...");
         }
 
+        blockTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
         try (PrintStream out = new PrintStream(results)) {
 
             //3DES
@@ -134,6 +136,49 @@ public class BlockCipherTester extends TimeTester {
         System.out.println("Done.");
     }
 
+    /**
+     * Executes the default chunk sweep: DESede, AES and RC2.
+     *
+     * <p>
+     * Data is processed in bulk, with chunks from 64 bytes to 1 MiB, reporting
+     * the throughput for each chunk size.
+     * </p>
+     *
+     * @since 1.1
+     */
+    public static void runChunkSweep() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/block ciphers chunk sweep.txt");
+        int nTests = 10;
+
+        TimeTester blockTester = new BlockCipherTester();
+
+        //Libraries
+        String[] providers = new String[]{"BC", "FlexiCore", "SunJCE"};
+
+        System.out.println("Evaluating block ciphers (chunk sweep)...");
+
+        blockTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            //3DES
+            blockTester.execChunkSweep(nTests, TimeTester.chunkSizes(), file, out, "DESede/CBC/PKCS5Padding", Operation.ENCRYPTION_DECRYPTION, providers);
+            //AES
+            blockTester.execChunkSweep(nTests, TimeTester.chunkSizes(), file, out, "AES/CBC/PKCS5Padding", Operation.ENCRYPTION_DECRYPTION, providers);
+            //RC2
+            blockTester.execChunkSweep(nTests, TimeTester.chunkSizes(), file, out, "RC2/CBC/PKCS5Padding", Operation.ENCRYPTION_DECRYPTION, providers);
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(BlockCipherTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
     /**
      * Test the specified scheme.
      *
@@ -161,39 +206,28 @@ public class BlockCipherTester extends TimeTester {
         SecureRandom randGenerator = new SecureRandom();
         KeyGenerator generator;
 
+        meter.phase(PHASE_LOOKUP);
         generator = KeyGenerator.getInstance(algorithm.split("/")[0], provider);
+        meter.phase(PHASE_KEYGEN);
         generator.init(randGenerator);
         SecretKey key = generator.generateKey();
 
+        meter.phase(PHASE_LOOKUP);
         cipherEncryption = Cipher.getInstance(algorithm, provider);
+        meter.phase(PHASE_INIT);
         cipherEncryption.init(Cipher.ENCRYPT_MODE, key);
 
+        meter.phase(PHASE_LOOKUP);
         cipherDecription = Cipher.getInstance(algorithm, provider);
 
+        meter.phase(PHASE_INIT);
         if (cipherEncryption.getIV() != null) {
             cipherDecription.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(cipherEncryption.getIV()));
         } else {
             cipherDecription.init(Cipher.DECRYPT_MODE, key);
         }
 
-        try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(baseInput))) {
-
-            CipherInputStream encryptionStream = new CipherInputStream(input, cipherEncryption);
-            CipherInputStream decryptionStream = new CipherInputStream(encryptionStream, cipherDecription);
-
-            meter.start();
-
-            while (decryptionStream.read() > -1);
-
-            decryptionStream.close();//End all encryption and decryption operation
-
-            meter.stop();
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            meter = null;
-        }
-
-        return meter;
+        return processCiphers(baseInput, meter, cipherEncryption, cipherDecription);
     }
 
     @Override
@@ -205,30 +239,18 @@ public class BlockCipherTester extends TimeTester {
         SecureRandom randGenerator = new SecureRandom();
         KeyGenerator generator;
 
+        meter.phase(PHASE_LOOKUP);
         generator = KeyGenerator.getInstance(algorithm.split("/")[0], provider);
+        meter.phase(PHASE_KEYGEN);
         generator.init(randGenerator);
         SecretKey key = generator.generateKey();
 
+        meter.phase(PHASE_LOOKUP);
         cipherEncryption = Cipher.getInstance(algorithm, provider);
+        meter.phase(PHASE_INIT);
         cipherEncryption.init(Cipher.ENCRYPT_MODE, key);
 
-        try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(baseInput))) {
-
-            CipherInputStream encryptionStream = new CipherInputStream(input, cipherEncryption);
-
-            meter.start();
-
-            while (encryptionStream.read() > -1);
-
-            encryptionStream.close();//End all encryption and decryption operation
-
-            meter.stop();
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            meter = null;
-        }
-
-        return meter;
+        return processCiphers(baseInput, meter, cipherEncryption);
     }
 
     @Override
@@ -240,37 +262,27 @@ public class BlockCipherTester extends TimeTester {
         SecureRandom randGenerator = new SecureRandom();
         KeyGenerator generator;
 
+        meter.phase(PHASE_LOOKUP);
         generator = KeyGenerator.getInstance(algorithm.split("/")[0], provider);
+        meter.phase(PHASE_KEYGEN);
         generator.init(randGenerator);
         SecretKey key = generator.generateKey();
 
+        meter.phase(PHASE_LOOKUP);
         cipherEncryption = Cipher.getInstance(algorithm, provider);
+        meter.phase(PHASE_INIT);
         cipherEncryption.init(Cipher.ENCRYPT_MODE, key);
 
+        meter.phase(PHASE_LOOKUP);
         cipherDecription = Cipher.getInstance(algorithm, provider);
 
+        meter.phase(PHASE_INIT);
         if (cipherEncryption.getIV() != null) {
             cipherDecription.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(cipherEncryption.getIV()));
         } else {
             cipherDecription.init(Cipher.DECRYPT_MODE, key);
         }
 
-        try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(baseInput))) {
-
-            CipherInputStream decryptionStream = new CipherInputStream(input, cipherDecription);
-
-            meter.start();
-
-            while (decryptionStream.read() > -1);
-
-            decryptionStream.close();//End all encryption and decryption operation
-
-            meter.stop();
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            meter = null;
-        }
-
-        return meter;
+        return processCiphers(baseInput, meter, cipherDecription);
     }
 }
@@ -0,0 +1,330 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.CipherPool;
+import crypto.performance.CipherPool.Strategy;
+import crypto.performance.Algorithms;
+import crypto.performance.Libraries;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import performance.ConcurrentSummary;
+import performance.SimpleMeter;
+import performance.TimerSummary;
+
+/**
+ * Test and measure Cipher reuse strategies on small messages.
+ *
+ * <p>
+ * Same workload as {@link SmallMessageTester}, except that every message
+ * acquires its cipher from a {@link CipherPool} and releases it afterwards,
+ * so the cost of {@link Cipher#getInstance(String, String)}, of thread local
+ * lookups and of a shared pool's synchronization are part of each operation.
+ * Every strategy is evaluated from 1 thread up to the number of cores, all
+ * threads sharing the same pool.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ *
+ * @see CipherPool
+ */
+public class CipherPoolTester extends SmallMessageTester {
+
+    /**
+     * Pool in use by the experiments.
+     *
+     * @since 1.0
+     */
+    private CipherPool pool = new CipherPool(Strategy.NEW_PER_OPERATION);
+
+    /**
+     * Executes the default test: AES on CBC and GCM, and ChaCha20-Poly1305,
+     * for 64 byte messages, with every strategy. ChaCha20-Poly1305 is skipped
+     * when the running JDK does not offer it.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/cipher pool.txt");
+        int nTests = 10;
+        int[] threadCounts = threadCounts();
+
+        CipherPoolTester poolTester = new CipherPoolTester();
+
+        System.out.println("Evaluating cipher reuse strategies...");
+
+        poolTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            //AES
+            poolTester.execPoolTests(nTests, threadCounts, file, out, "AES/CBC/PKCS5Padding",
+                    Operation.ENCRYPTION, new String[]{"BC", "FlexiCore", "SunJCE"});
+            //AES GCM
+            poolTester.execPoolTests(nTests, threadCounts, file, out, "AES/GCM/NoPadding",
+                    Operation.ENCRYPTION, new String[]{"BC", "SunJCE"});
+            //ChaCha20-Poly1305, JDK 11 onwards
+            poolTester.execPoolTests(nTests, threadCounts, file, out, "ChaCha20-Poly1305",
+                    Operation.ENCRYPTION, Algorithms.providers("Cipher", "ChaCha20-Poly1305", "SunJCE"));
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(CipherPoolTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Executes n tests per thread on the specified algorithm, from each
+     * provider, with each reuse strategy and number of threads.
+     *
+     * <p>
+     * Every strategy gets a new pool, warmed up before measuring. After the
+     * concurrent summaries of each provider, the aggregate operations per
+     * second, the latency percentiles and the number of ciphers created while
+     * measuring are reported for each strategy and number of threads. The
+     * pool in use before the tests is restored at the end.
+     * </p>
+     *
+     * @since 1.0
+     * @param nTests Number of tests to run on each thread.
+     * @param threadCounts Numbers of threads to evaluate.
+     * @param baseInput Input file, from where messages are cut.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param operation Operation to test.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    public void execPoolTests(int nTests, int[] threadCounts, File baseInput, PrintStream out,
+            String algorithm, Operation operation, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        CipherPool previousPool = getPool();
+
+        try {
+            for (String provider : providers) {
+                String name = algorithm + "-" + provider;
+                Experiment experiment = experiment(baseInput, algorithm, operation, 0, provider);
+
+                List<ConcurrentSummary> summaries = new ArrayList<>();
+                List<Long> created = new ArrayList<>();
+
+                for (Strategy strategy : Strategy.values()) {
+                    setPool(new CipherPool(strategy));
+                    warmUp(experiment, new TimerSummary(name + "-" + strategy));
+
+                    for (int nThreads : threadCounts) {
+                        long createdBefore = getPool().getCreated();
+
+                        ConcurrentSummary summary = execConcurrentTests(nTests, nThreads, baseInput,
+                                name + "-" + strategy + " (" + nThreads + " threads)", experiment);
+                        summary.print(out);
+                        out.println();
+
+                        summaries.add(summary);
+                        created.add(getPool().getCreated() - createdBefore);
+                    }
+                }
+
+                out.println(label(name) + " cipher reuse");
+                out.println(String.format("%20s\t%8s\t%12s\t%10s\t%10s\t%10s\t%10s\t%s",
+                        "Strategy", "Threads", "ops/s", "p50", "p99", "p99.9", "Ciphers",
+                        TimeUnit.MICROSECONDS.name() + "/operation"));
+                for (int i = 0; i < summaries.size(); i++) {
+                    ConcurrentSummary summary = summaries.get(i);
+
+                    out.println(String.format("%20s\t%8d\t%12.2f\t%10.2f\t%10.2f\t%10.2f\t%10d",
+                            Strategy.values()[i / threadCounts.length],
+                            summary.getNThreads(),
+                            summary.getOperationsPerSecond(),
+                            summary.getLatencies().getPercentile(50, TimeUnit.MICROSECONDS),
+                            summary.getLatencies().getPercentile(99, TimeUnit.MICROSECONDS),
+                            summary.getLatencies().getPercentile(99.9, TimeUnit.MICROSECONDS),
+                            created.get(i)));
+                }
+                out.println();
+            }
+        } finally {
+            setPool(previousPool);
+        }
+    }
+
+    /**
+     * Test the specified scheme on small messages, acquiring a cipher from
+     * the pool for every message.
+     *
+     * <p>
+     * Keys, IVs, message offsets and, for decryption only, cipher texts are
+     * prepared before measuring; the latency of each message, including
+     * acquiring and releasing its ciphers, is recorded.
+     * </p>
+     *
+     * @since 1.0
+     * @param baseInput Input file, from where messages are cut.
+     * @param algorithm Algorithm to be used.
+     * @param provider Library from where the algorithm comes.
+     * @param operation Operation to test.
+     * @return A SimpleMeter containing the time measurements, or null if the
+     * test failed.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    @Override
+    protected SimpleMeter test(File baseInput, String algorithm, String provider, Operation operation)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        SimpleMeter meter = new SimpleMeter();
+        SecureRandom randGenerator = new SecureRandom();
+        CipherPool ciphers = getPool();
+        int messageSize = getMessageSize();
+        int nMessages = getNMessages();
+
+        meter.phase(PHASE_LOOKUP);
+        KeyGenerator generator = KeyGenerator.getInstance(keyAlgorithm(algorithm), provider);
+        meter.phase(PHASE_KEYGEN);
+        generator.init(randGenerator);
+        SecretKey key = generator.generateKey();
+        meter.endPhase();
+
+        Cipher cipher = ciphers.acquire(algorithm, provider);
+        AlgorithmParameterSpec[] parameters = messageParameters(algorithm, cipher, randGenerator);
+        ciphers.release(cipher);
+
+        try {
+            byte[] input = loadInput(baseInput);
+            int[] offsets = messageOffsets(input.length, messageSize, nMessages);
+
+            byte[] cipherText = new byte[messageSize + 64];
+            byte[] plainText = new byte[messageSize + 64];
+            byte[][] cipherTexts = null;
+
+            if (operation == Operation.DECRYPTION) {
+                cipherTexts = new byte[nMessages][];
+                cipher = ciphers.acquire(algorithm, provider);
+
+                for (int i = 0; i < nMessages; i++) {
+                    initMessage(cipher, Cipher.ENCRYPT_MODE, key, parameters[i]);
+                    cipherTexts[i] = cipher.doFinal(input, offsets[i], messageSize);
+                }
+                ciphers.release(cipher);
+            }
+
+            meter.start();
+            meter.phase(PHASE_BULK);
+
+            for (int i = 0; i < nMessages; i++) {
+                long start = System.nanoTime();
+
+                cipher = ciphers.acquire(algorithm, provider);
+                switch (operation) {
+                    case ENCRYPTION:
+                        initMessage(cipher, Cipher.ENCRYPT_MODE, key, parameters[i]);
+                        cipher.doFinal(input, offsets[i], messageSize, cipherText, 0);
+                        break;
+                    case DECRYPTION:
+                        initMessage(cipher, Cipher.DECRYPT_MODE, key, parameters[i]);
+                        cipher.doFinal(cipherTexts[i], 0, cipherTexts[i].length, plainText, 0);
+                        break;
+                    default:
+                        initMessage(cipher, Cipher.ENCRYPT_MODE, key, parameters[i]);
+                        int length = cipher.doFinal(input, offsets[i], messageSize, cipherText, 0);
+                        initMessage(cipher, Cipher.DECRYPT_MODE, key, parameters[i]);
+                        cipher.doFinal(cipherText, 0, length, plainText, 0);
+                }
+                ciphers.release(cipher);
+
+                meter.recordLatency(System.nanoTime() - start);
+            }
+
+            meter.endPhase();
+            meter.stop();
+
+            meter.addBytes((long) nMessages * messageSize);
+            meter.addOperations(nMessages);
+        } catch (IOException | GeneralSecurityException ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Access the pool in use by the experiments.
+     *
+     * @since 1.0
+     * @return Current pool.
+     */
+    public CipherPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Defines the pool to be used by the experiments.
+     *
+     * @since 1.0
+     * @param pool New pool.
+     */
+    public void setPool(CipherPool pool) {
+        this.pool = pool;
+    }
+}
@@ -54,6 +54,18 @@ import performance.TimerSummary;
  * @see HashTester
  * @see AsymmetricCipherTester
  * @see StreamCipherTester
+ * @see ScalingTester
+ * @see InputModeTester
+ * @see PayloadSizeTester
+ * @see SmallMessageTester
+ * @see CipherPoolTester
+ * @see AeadCipherTester
+ * @see SignatureTester
+ * @see KeyAgreementTester
+ * @see KeyGenTester
+ * @see MacTester
+ * @see KdfTester
+ * @see ParallelHashTester
  * @see TimerSummary
  */
 public class GeneralTester {
@@ -74,6 +86,53 @@ public class GeneralTester {
         BlockCipherTester.run(false);
         AsymmetricCipherTester.run(false);//Seriously time consuming 
         StreamCipherTester.run(false);
+
+        //Hybrid encryption, wrapped AES key and AES/GCM payload.
+        AsymmetricCipherTester.runHybrid();
+
+        //Bulk processing, chunk size sweep.
+        BlockCipherTester.runChunkSweep();
+        StreamCipherTester.runChunkSweep();
+        HashTester.runChunkSweep();
+
+        //Hash functions, digest reuse for messages sharing a prefix.
+        HashTester.runReuse();
+
+        //Parallel hashing, many files and Merkle trees.
+        ParallelHashTester.run();//Time consuming
+
+        //Stream versus memory-mapped input.
+        InputModeTester.run();
+
+        //Payload size sweep, from 16 bytes to 4 GiB.
+        PayloadSizeTester.run();//Time consuming
+
+        //Small messages, operations per second.
+        SmallMessageTester.run();
+
+        //Cipher reuse strategies, single and multi-threaded.
+        CipherPoolTester.run();
+
+        //Authenticated encryption, AAD size and tag length sweep.
+        AeadCipherTester.run();
+
+        //MACs, whole file and small messages.
+        MacTester.run();
+
+        //Key derivation functions, cost sweep.
+        KdfTester.run();//Time consuming
+
+        //Signatures, sign and verify per key size.
+        SignatureTester.run();//Time consuming
+
+        //Key agreements, single and multi-threaded.
+        KeyAgreementTester.run();//Time consuming
+
+        //Key pair generation, sequential and parallel.
+        KeyGenTester.run();//Time consuming
+
+        //Multi-threaded scaling test.
+        ScalingTester.run();//Time consuming
     }
 
 }
@@ -26,37 +26,111 @@
  */
 package crypto.performance.testers;
 
+import crypto.performance.Algorithms;
 import crypto.performance.Libraries;
 import crypto.performance.TimeTester;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.security.DigestException;
 import java.security.DigestInputStream;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.NoSuchProviderException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.crypto.NoSuchPaddingException;
 import performance.SimpleMeter;
+import performance.TimerSummary;
 
 /**
  * Test and measure performance for Hash functions.
  *
+ * <p>
+ * Algorithm names are resolved for each provider through {@link Algorithms},
+ * so canonical names (SHA-512/256, RIPEMD-160, Tiger) can be used with all of
+ * them.
+ * </p>
+ *
+ * <p>
+ * By default, the whole file is hashed as a single message. With a message
+ * size, the file is cut into messages sharing a common prefix, each one hashed
+ * with update(byte[], int, int) and digest, and the digest is obtained
+ * according to a {@link Reuse} strategy: a new instance, the same instance
+ * reset, or a clone of an instance already fed with the prefix.
+ * </p>
+ *
  * @author Victor de Lima Soares
- * @version 1.0
+ * @version 1.1
  */
 public class HashTester extends TimeTester {
 
     /**
-     * Executes the default test: MD5, SHA-1, SHA-512.
+     * Strategies to obtain a digest for each message.
+     *
+     * @since 1.1
+     */
+    public enum Reuse {
+
+        /**
+         * A new instance from the provider (getInstance) per message, fed
+         * with the prefix and the message.
+         */
+        NEW_INSTANCE,
+        /**
+         * A single instance, reset and fed with the prefix and the message.
+         */
+        RESET,
+        /**
+         * A clone, per message, of an instance fed with the prefix once; only
+         * the message is fed to the clone.
+         */
+        CLONE
+    }
+
+    /**
+     * Message size in bytes; zero to hash the whole file.
+     *
+     * @since 1.1
+     */
+    private int messageSize = 0;
+
+    /**
+     * Number of messages per experiment.
      *
+     * @since 1.1
+     */
+    private int nMessages = 4096;
+
+    /**
+     * Size of the prefix shared by all messages, in bytes.
+     *
+     * @since 1.1
+     */
+    private int prefixSize = 0;
+
+    /**
+     * Strategy to obtain a digest for each message.
+     *
+     * @since 1.1
+     */
+    private Reuse reuse = Reuse.RESET;
+
+    /**
+     * Executes the default test: MD5, SHA-1, the SHA-2 family, SHA-3
+     * (Keccak), BLAKE2, RIPEMD-160, Whirlpool and Tiger, each on the providers
+     * offering it.
      *
      * @since 1.0
+     * @see Algorithms#digests()
      */
     public static void run() {
 
@@ -69,15 +143,24 @@ public class HashTester extends TimeTester {
         TimeTester hashTester = new HashTester();
 
         //Libraries
-        String[] providers = new String[]{"BC", "FlexiCore", "SUN"};
+        String[] libraries = new String[]{"BC", "FlexiCore", "SUN"};
 
         System.out.println("Evaluating hash functions...");
 
+        hashTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
         try (PrintStream out = new PrintStream(results)) {
 
-            hashTester.execTests(nTests, file, out, "MD5", providers);
-            hashTester.execTests(nTests, file, out, "SHA-1", providers);
-            hashTester.execTests(nTests, file, out, "SHA-512", providers);
+            for (String algorithm : Algorithms.digests()) {
+                String[] providers = Algorithms.providers("MessageDigest", algorithm, libraries);
+
+                if (providers.length == 0) {
+                    out.println(algorithm + ": not offered by " + Arrays.toString(libraries));
+                    out.println();
+                    continue;
+                }
+                hashTester.execTests(nTests, file, out, algorithm, providers);
+            }
 
         } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException |
                 InvalidKeyException | InvalidAlgorithmParameterException ex) {
@@ -87,6 +170,191 @@ public class HashTester extends TimeTester {
         System.out.println("Done.");
     }
 
+    /**
+     * Executes the chunk sweep: SHA-256, SHA-512 and SHA3-256, fed with
+     * update(byte[], int, int) in chunks from 64 bytes to 1 MiB.
+     *
+     * @since 1.1
+     */
+    public static void runChunkSweep() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/hash chunk sweep.txt");
+        int nTests = 10;
+
+        TimeTester hashTester = new HashTester();
+
+        //Libraries
+        String[] libraries = new String[]{"BC", "FlexiCore", "SUN"};
+
+        System.out.println("Evaluating hash functions (chunk sweep)...");
+
+        hashTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            for (String algorithm : new String[]{"SHA-256", "SHA-512", "SHA3-256"}) {
+                hashTester.execChunkSweep(nTests, TimeTester.chunkSizes(), file, out, algorithm,
+                        Operation.ENCRYPTION_DECRYPTION, Algorithms.providers("MessageDigest", algorithm, libraries));
+            }
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException |
+                InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(HashTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Executes the reuse test: SHA-256, SHA-512 and SHA3-256 on 64 byte and
+     * 1 KiB messages sharing a 256 byte prefix, for each reuse strategy.
+     *
+     * @since 1.1
+     */
+    public static void runReuse() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/hash reuse.txt");
+        int nTests = 10;
+
+        HashTester hashTester = new HashTester();
+        hashTester.setPrefixSize(256);
+
+        //Libraries
+        String[] libraries = new String[]{"BC", "FlexiCore", "SUN"};
+
+        System.out.println("Evaluating hash functions (reuse)...");
+
+        hashTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            for (String algorithm : new String[]{"SHA-256", "SHA-512", "SHA3-256"}) {
+                hashTester.execReuseSweep(nTests, Reuse.values(), new int[]{64, 1024}, file, out, algorithm,
+                        Algorithms.providers("MessageDigest", algorithm, libraries));
+            }
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException |
+                InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(HashTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each reuse strategy and message size.
+     *
+     * <p>
+     * After the summaries of each provider, the operations per second and the
+     * latency percentiles for each strategy and message size are reported;
+     * cloning is reported as unsupported for providers whose digests can not
+     * be cloned (FlexiCore). The strategy and message size in use before the
+     * sweep are restored at the end.
+     * </p>
+     *
+     * @since 1.1
+     * @param nTests Number of tests to run.
+     * @param strategies Reuse strategies.
+     * @param messageSizes Message sizes, in bytes, without the prefix.
+     * @param baseInput Input file, from where messages are cut.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    public void execReuseSweep(int nTests, Reuse[] strategies, int[] messageSizes, File baseInput,
+            PrintStream out, String algorithm, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        Reuse previousReuse = getReuse();
+        int previousMessageSize = getMessageSize();
+
+        try {
+            for (String provider : providers) {
+                String name = algorithm + "-" + provider;
+                Experiment experiment = experiment(baseInput, algorithm, Operation.ENCRYPTION_DECRYPTION, 0, provider);
+                TimerSummary[] summaries = new TimerSummary[strategies.length * messageSizes.length];
+                boolean cloneable = isCloneable(algorithm, provider);
+
+                for (int i = 0; i < strategies.length; i++) {
+                    if (strategies[i] == Reuse.CLONE && !cloneable) {
+                        continue;
+                    }
+                    setReuse(strategies[i]);
+
+                    for (int j = 0; j < messageSizes.length; j++) {
+                        setMessageSize(messageSizes[j]);
+
+                        TimerSummary summary = execTests(nTests, baseInput,
+                                name + "-" + strategies[i].name().toLowerCase() + "-" + messageSizes[j] + "B", experiment);
+                        report(summary, out);
+                        summaries[i * messageSizes.length + j] = summary;
+                    }
+                }
+
+                out.println(label(name) + " reuse (" + prefixSize + "B prefix)");
+                out.println(String.format("%15s\t%15s\t%12s\t%10s\t%10s\t%10s\t%s",
+                        "Reuse", "Message Size", "ops/s", "p50", "p99", "p99.9",
+                        TimeUnit.MICROSECONDS.name() + "/operation"));
+                for (int i = 0; i < summaries.length; i++) {
+                    TimerSummary summary = summaries[i];
+                    String strategy = strategies[i / messageSizes.length].name();
+                    int size = messageSizes[i % messageSizes.length];
+
+                    if (summary == null) {
+                        out.println(String.format("%15s\t%15d\t%12s", strategy, size, "unsupported"));
+                        continue;
+                    }
+                    out.println(String.format("%15s\t%15d\t%12.2f\t%10.2f\t%10.2f\t%10.2f",
+                            strategy,
+                            size,
+                            summary.getOperationsPerSecond(),
+                            summary.getLatencies().getPercentile(50, TimeUnit.MICROSECONDS),
+                            summary.getLatencies().getPercentile(99, TimeUnit.MICROSECONDS),
+                            summary.getLatencies().getPercentile(99.9, TimeUnit.MICROSECONDS)));
+                }
+                out.println();
+            }
+        } finally {
+            setReuse(previousReuse);
+            setMessageSize(previousMessageSize);
+        }
+    }
+
+    /**
+     * Checks if the digests of a provider can be cloned.
+     *
+     * @since 1.1
+     * @param algorithm Algorithm to be used.
+     * @param provider Library from where the algorithm comes.
+     * @return true if clone is supported.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     */
+    public static boolean isCloneable(String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException {
+        try {
+            Algorithms.messageDigest(algorithm, provider).clone();
+            return true;
+        } catch (CloneNotSupportedException ex) {
+            return false;
+        }
+    }
+
     /**
      * Test the specified scheme.
      *
@@ -94,7 +362,8 @@ public class HashTester extends TimeTester {
      * @param baseInput Input file to run the tests.
      * @param algorithm Algorithm to be used.
      * @param provider Library from where the algorithm comes.
-     * @return A SimpleMeter containing the time measurements.
+     * @return A SimpleMeter containing the time measurements, or null if the
+     * test failed.
      */
     @Override
     public SimpleMeter test(File baseInput, String algorithm, String provider)
@@ -103,28 +372,165 @@ public class HashTester extends TimeTester {
         MessageDigest hashFunction;
         SimpleMeter meter = new SimpleMeter();
 
-        try {
-            hashFunction = MessageDigest.getInstance(algorithm, provider);
-        } catch (NoSuchAlgorithmException ex) {//Deals with name variation for algorithms, with our withou -
-            String[] withoutMinus = algorithm.split("-", 2);
-            hashFunction = MessageDigest.getInstance(withoutMinus[0] + withoutMinus[1], provider);
+        meter.phase(PHASE_LOOKUP);
+        hashFunction = Algorithms.messageDigest(algorithm, provider);
+        meter.endPhase();
+
+        if (messageSize > 0) {
+            return testMessages(baseInput, hashFunction, provider, meter);
+        }
+
+        if (getInputMode() != InputMode.STREAM) {
+            try {
+                ByteBuffer[] input = inputBuffers(baseInput);
+                int chunkSize = getBulkChunkSize();
+
+                meter.start();
+                meter.phase(PHASE_BULK);
+
+                for (ByteBuffer region : input) {
+                    ByteBuffer chunk = region.duplicate();
+
+                    while (region.hasRemaining()) {
+                        chunk.limit(Math.min(region.position() + chunkSize, region.limit()));
+                        chunk.position(region.position());
+                        region.position(chunk.limit());
+
+                        hashFunction.update(chunk);
+                    }
+                }
+
+                meter.phase(PHASE_FINAL);
+                hashFunction.digest();
+
+                meter.endPhase();
+                meter.stop();
+
+                meter.addBytes(baseInput.length());
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                meter = null;
+            }
+
+            return meter;
         }
 
         try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(baseInput))) {
-            DigestInputStream digestStream = new DigestInputStream(input, hashFunction);
+
+            if (getChunkSize() > 0) {
+                byte[] chunk = new byte[getChunkSize()];
+                int length;
+
+                meter.start();
+                meter.phase(PHASE_BULK);
+
+                while ((length = input.read(chunk)) > -1) {
+                    hashFunction.update(chunk, 0, length);
+                }
+
+                meter.phase(PHASE_FINAL);
+                hashFunction.digest();
+
+                meter.endPhase();
+                meter.stop();
+            } else {
+                DigestInputStream digestStream = new DigestInputStream(input, hashFunction);
+
+                meter.start();
+                meter.phase(PHASE_BULK);
+
+                while (digestStream.read() > -1);
+
+                meter.phase(PHASE_FINAL);
+                hashFunction.digest();
+
+                meter.endPhase();
+                meter.stop();
+            }
+
+            meter.addBytes(baseInput.length());
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Test a hash function on messages sharing a prefix, obtaining the digest
+     * for each message according to the reuse strategy.
+     *
+     * <p>
+     * The prefix is the beginning of the file; message offsets and, for
+     * cloning, the instance fed with the prefix are prepared before
+     * measuring. The latency of each message is recorded; bytes include the
+     * prefix, even when cloning avoids hashing it again.
+     * </p>
+     *
+     * @since 1.1
+     * @param baseInput Input file, from where messages are cut.
+     * @param hashFunction Hash function, from the provider.
+     * @param provider Library from where the algorithm comes.
+     * @param meter Meter for the measurement, not yet started.
+     * @return The stopped meter, or null if the test failed.
+     */
+    private SimpleMeter testMessages(File baseInput, MessageDigest hashFunction, String provider,
+            SimpleMeter meter) {
+
+        try {
+            byte[] input = loadInput(baseInput);
+            int[] offsets = SmallMessageTester.messageOffsets(input.length, messageSize, nMessages);
+            byte[] digest = new byte[hashFunction.getDigestLength()];
+            String algorithm = hashFunction.getAlgorithm();
+
+            if (prefixSize > input.length) {
+                throw new IOException("Input smaller than the prefix: " + baseInput);
+            }
+
+            meter.phase(PHASE_INIT);
+            if (reuse == Reuse.CLONE) {
+                hashFunction.update(input, 0, prefixSize);
+            }
+            meter.endPhase();
 
             meter.start();
+            meter.phase(PHASE_BULK);
+
+            for (int i = 0; i < nMessages; i++) {
+                long start = System.nanoTime();
+                MessageDigest message;
 
-            while (digestStream.read() > -1);
+                switch (reuse) {
+                    case NEW_INSTANCE:
+                        message = MessageDigest.getInstance(algorithm, provider);
+                        message.update(input, 0, prefixSize);
+                        break;
+                    case CLONE:
+                        message = (MessageDigest) hashFunction.clone();
+                        break;
+                    default:
+                        message = hashFunction;
+                        message.reset();
+                        message.update(input, 0, prefixSize);
+                }
+                message.update(input, offsets[i], messageSize);
+                message.digest(digest, 0, digest.length);
 
-            hashFunction.digest();
+                meter.recordLatency(System.nanoTime() - start);
+            }
 
+            meter.endPhase();
             meter.stop();
-        } catch (Exception ex) {
+
+            meter.addBytes((long) nMessages * (prefixSize + messageSize));
+            meter.addOperations(nMessages);
+        } catch (IOException | CloneNotSupportedException | DigestException | NoSuchAlgorithmException |
+                NoSuchProviderException ex) {
             ex.printStackTrace();
+            meter = null;
         }
 
-        meter.stop();
         return meter;
     }
 
@@ -137,4 +543,92 @@ public class HashTester extends TimeTester {
     public SimpleMeter testDecryption(File baseInput, String algorithm, String provider) throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException {
         throw new UnsupportedOperationException("Not supported: hash function.");
     }
+
+    /**
+     * Access the message size.
+     *
+     * @since 1.1
+     * @return Message size in bytes; zero for the whole file.
+     */
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    /**
+     * Defines the message size.
+     *
+     * @since 1.1
+     * @param messageSize Message size in bytes, without the prefix; zero to
+     * hash the whole file.
+     */
+    public void setMessageSize(int messageSize) {
+        if (messageSize < 0) {
+            throw new IllegalArgumentException("Invalid message size: " + messageSize);
+        }
+        this.messageSize = messageSize;
+    }
+
+    /**
+     * Access the number of messages per experiment.
+     *
+     * @since 1.1
+     * @return Number of messages.
+     */
+    public int getNMessages() {
+        return nMessages;
+    }
+
+    /**
+     * Defines the number of messages per experiment.
+     *
+     * @since 1.1
+     * @param nMessages Number of messages.
+     */
+    public void setNMessages(int nMessages) {
+        this.nMessages = nMessages;
+    }
+
+    /**
+     * Access the prefix size.
+     *
+     * @since 1.1
+     * @return Size of the prefix shared by all messages, in bytes.
+     */
+    public int getPrefixSize() {
+        return prefixSize;
+    }
+
+    /**
+     * Defines the prefix size.
+     *
+     * @since 1.1
+     * @param prefixSize Size of the prefix shared by all messages, in bytes;
+     * zero for none.
+     */
+    public void setPrefixSize(int prefixSize) {
+        if (prefixSize < 0) {
+            throw new IllegalArgumentException("Invalid prefix size: " + prefixSize);
+        }
+        this.prefixSize = prefixSize;
+    }
+
+    /**
+     * Access the reuse strategy.
+     *
+     * @since 1.1
+     * @return Strategy to obtain a digest for each message.
+     */
+    public Reuse getReuse() {
+        return reuse;
+    }
+
+    /**
+     * Defines the reuse strategy.
+     *
+     * @since 1.1
+     * @param reuse Strategy to obtain a digest for each message.
+     */
+    public void setReuse(Reuse reuse) {
+        this.reuse = reuse;
+    }
 }
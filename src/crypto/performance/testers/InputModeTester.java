@@ -0,0 +1,114 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.Libraries;
+import crypto.performance.TimeTester;
+import crypto.performance.TimeTester.InputMode;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.NoSuchPaddingException;
+
+/**
+ * Test and measure how providers handle their input: heap arrays, read from
+ * streams, direct buffers, mapped from the file, or heap arrays, loaded into
+ * memory before any measurement.
+ *
+ * <p>
+ * All modes process the data in bulk, with the same chunk size; providers
+ * without a proper ByteBuffer path copy mapped data into arrays, what shows as
+ * a slower mapped mode, while the memory mode measures no I/O at all.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ *
+ * @see TimeTester#setInputMode
+ */
+public class InputModeTester {
+
+    /**
+     * Executes the default test: AES on CBC and CFB, SHA-1 and SHA-512, for
+     * every input mode.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/input modes.txt");
+        int nTests = 10;
+
+        TimeTester blockTester = new BlockCipherTester();
+        TimeTester hashTester = new HashTester();
+
+        //Libraries
+        String[] cipherProviders = new String[]{"BC", "FlexiCore", "SunJCE"};
+        String[] hashProviders = new String[]{"BC", "FlexiCore", "SUN"};
+
+        System.out.println("Evaluating input modes...");
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            for (InputMode mode : InputMode.values()) {
+                File samples = new File("data/results/samples", results.getName().replace(".txt", "") + " " + mode.name().toLowerCase());
+
+                blockTester.setInputMode(mode);
+                blockTester.setChunkSize(TimeTester.DEFAULT_CHUNK_SIZE);
+                blockTester.setSamplesDirectory(samples);
+                hashTester.setInputMode(mode);
+                hashTester.setChunkSize(TimeTester.DEFAULT_CHUNK_SIZE);
+                hashTester.setSamplesDirectory(samples);
+
+                out.println("Input mode: " + mode);
+                out.println();
+
+                //AES
+                blockTester.execTests(nTests, file, out, "AES/CBC/PKCS5Padding", cipherProviders);
+                //AES CFB
+                blockTester.execTests(nTests, file, out, "AES/CFB/PKCS5Padding", cipherProviders);
+                //Hashes
+                hashTester.execTests(nTests, file, out, "SHA-1", hashProviders);
+                hashTester.execTests(nTests, file, out, "SHA-512", hashProviders);
+            }
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(InputModeTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+}
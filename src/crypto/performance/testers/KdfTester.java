@@ -0,0 +1,560 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.Libraries;
+import crypto.performance.TimeTester;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.generators.HKDFBytesGenerator;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.generators.SCrypt;
+import org.bouncycastle.crypto.params.HKDFParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import performance.ConcurrentSummary;
+import performance.SimpleMeter;
+
+/**
+ * Test and measure performance for key derivation functions (KDF): PBKDF2,
+ * scrypt and HKDF.
+ *
+ * <p>
+ * Each experiment derives a sequence of keys from the same password, with a
+ * new salt for each one; salts are generated before measuring and the latency
+ * of each derivation is recorded. The cost parameter is the iteration count
+ * for PBKDF2 and the CPU/memory cost (N, a power of two) for scrypt, with
+ * block size r and parallelization p fixed by the tester; HKDF has no cost
+ * parameter.
+ * </p>
+ *
+ * <p>
+ * PBKDF2 comes from the providers' SecretKeyFactory when available. Bouncy
+ * Castle 1.51 only registers PBKDF2WithHmacSHA1, and scrypt and HKDF only in
+ * its lightweight API; those are called directly for "BC".
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class KdfTester extends TimeTester {
+
+    /**
+     * Password used for all derivations.
+     *
+     * @since 1.0
+     */
+    private static final char[] PASSWORD = "correct horse battery staple".toCharArray();
+
+    /**
+     * Context information for HKDF.
+     *
+     * @since 1.0
+     */
+    private static final byte[] INFO = "crypto-performance".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Cost parameter: PBKDF2 iterations or scrypt N.
+     *
+     * @since 1.0
+     */
+    private int cost = 10000;
+
+    /**
+     * Derived key length in bits.
+     *
+     * @since 1.0
+     */
+    private int keyLength = 256;
+
+    /**
+     * Number of derivations per experiment.
+     *
+     * @since 1.0
+     */
+    private int nDerivations = 8;
+
+    /**
+     * Block size (r) for scrypt.
+     *
+     * @since 1.0
+     */
+    private int blockSize = 8;
+
+    /**
+     * Parallelization (p) for scrypt.
+     *
+     * @since 1.0
+     */
+    private int parallelization = 1;
+
+    /**
+     * Derivation of a key from a password and a salt.
+     *
+     * @since 1.0
+     */
+    private interface Derivation {
+
+        byte[] derive(char[] password, byte[] salt) throws InvalidKeySpecException;
+    }
+
+    /**
+     * Executes the default test: PBKDF2 with HMAC SHA-1, SHA-256 and SHA-512,
+     * from 1000 to 100000 iterations; scrypt with N from 2^12 to 2^16; and
+     * HKDF with SHA-256 and SHA-512; each on one thread and on several at once.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/kdf.txt");
+        int nTests = 5;
+        int[] threadCounts = threadCounts();
+
+        KdfTester kdfTester = new KdfTester();
+
+        System.out.println("Evaluating key derivation functions...");
+
+        kdfTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            //PBKDF2
+            for (String algorithm : new String[]{"PBKDF2WithHmacSHA1", "PBKDF2WithHmacSHA256", "PBKDF2WithHmacSHA512"}) {
+                kdfTester.execCostSweep(nTests, new int[]{1000, 10000, 100000}, threadCounts, file, out, algorithm,
+                        new String[]{"BC", "SunJCE"});
+            }
+            //scrypt, r = 8, p = 1: 128 * r * N bytes per derivation
+            kdfTester.execCostSweep(nTests, new int[]{1 << 12, 1 << 14, 1 << 16}, threadCounts, file, out, "SCRYPT",
+                    new String[]{"BC"});
+            //HKDF, no cost
+            for (String algorithm : new String[]{"HKDFWithHmacSHA256", "HKDFWithHmacSHA512"}) {
+                kdfTester.execCostSweep(nTests, new int[]{0}, threadCounts, file, out, algorithm,
+                        new String[]{"BC"});
+            }
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(KdfTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each cost, on one thread and on each number of threads.
+     *
+     * <p>
+     * After the summaries of each provider, the derivations per second, the
+     * derivations per second per core (threads beyond the number of available
+     * processors do not add cores) and the latency percentiles, in
+     * milliseconds, are reported for each cost and number of threads. The cost
+     * in use before the sweep is restored at the end.
+     * </p>
+     *
+     * @since 1.0
+     * @param nTests Number of tests to run on each thread.
+     * @param costs Costs: PBKDF2 iterations or scrypt N; ignored by HKDF.
+     * @param threadCounts Numbers of threads.
+     * @param baseInput Input file; not used by the derivations.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see #threadCounts()
+     */
+    public void execCostSweep(int nTests, int[] costs, int[] threadCounts, File baseInput, PrintStream out,
+            String algorithm, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        int previousCost = getCost();
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        try {
+            for (String provider : providers) {
+                String name = algorithm + "-" + provider;
+                Experiment experiment = experiment(baseInput, algorithm, Operation.ENCRYPTION_DECRYPTION, 0, provider);
+                List<ConcurrentSummary> summaries = new ArrayList<>();
+
+                for (int cost : costs) {
+                    setCost(cost);
+
+                    report(execTests(nTests, baseInput, name + "-" + cost, experiment), out);
+
+                    for (int nThreads : threadCounts) {
+                        ConcurrentSummary summary = execConcurrentTests(nTests, nThreads, baseInput,
+                                name + "-" + cost + " (" + nThreads + " threads)", experiment);
+                        summary.print(out);
+                        out.println();
+                        summaries.add(summary);
+                    }
+                }
+
+                out.println(label(name) + " derivations");
+                out.println(String.format("%15s\t%8s\t%12s\t%12s\t%10s\t%10s\t%10s\t%s",
+                        "Cost", "Threads", "ops/s", "ops/s/core", "p50", "p99", "max",
+                        TimeUnit.MILLISECONDS.name() + "/derivation"));
+                for (int i = 0; i < summaries.size(); i++) {
+                    ConcurrentSummary summary = summaries.get(i);
+
+                    out.println(String.format("%15d\t%8d\t%12.2f\t%12.2f\t%10.3f\t%10.3f\t%10.3f",
+                            costs[i / threadCounts.length],
+                            summary.getNThreads(),
+                            summary.getOperationsPerSecond(),
+                            summary.getOperationsPerSecond() / Math.min(summary.getNThreads(), cores),
+                            summary.getLatencies().getPercentile(50, TimeUnit.MILLISECONDS),
+                            summary.getLatencies().getPercentile(99, TimeUnit.MILLISECONDS),
+                            summary.getLatencies().getMax(TimeUnit.MILLISECONDS)));
+                }
+                out.println();
+            }
+        } finally {
+            setCost(previousCost);
+        }
+    }
+
+    /**
+     * Test the specified key derivation function.
+     *
+     * @since 1.0
+     * @param baseInput Input file; not used by the derivations.
+     * @param algorithm Algorithm to be used.
+     * @param provider Library from where the algorithm comes.
+     * @return A SimpleMeter containing the time measurements, or null if the
+     * test failed.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     */
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException {
+
+        SimpleMeter meter = new SimpleMeter();
+
+        meter.phase(PHASE_LOOKUP);
+        Derivation derivation = derivation(algorithm, provider);
+        meter.endPhase();
+
+        SecureRandom randGenerator = new SecureRandom();
+        byte[][] salts = new byte[nDerivations][16];
+        for (byte[] salt : salts) {
+            randGenerator.nextBytes(salt);
+        }
+
+        try {
+            meter.start();
+            meter.phase(PHASE_BULK);
+
+            for (int i = 0; i < nDerivations; i++) {
+                long start = System.nanoTime();
+
+                derivation.derive(PASSWORD, salts[i]);
+
+                meter.recordLatency(System.nanoTime() - start);
+            }
+
+            meter.endPhase();
+            meter.stop();
+
+            meter.addOperations(nDerivations);
+        } catch (InvalidKeySpecException ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Creates the derivation for an algorithm, with the current cost.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm: PBKDF2WithHmac*, SCRYPT or HKDFWithHmac*.
+     * @param provider Library from where the algorithm comes.
+     * @return The derivation.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     */
+    private Derivation derivation(String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException {
+
+        final int iterations = cost;
+        final int length = keyLength;
+        final int r = blockSize;
+        final int p = parallelization;
+        String name = algorithm.toUpperCase();
+
+        if (name.startsWith("PBKDF2")) {
+            try {
+                final SecretKeyFactory factory = SecretKeyFactory.getInstance(algorithm, provider);
+
+                return new Derivation() {
+
+                    @Override
+                    public byte[] derive(char[] password, byte[] salt) throws InvalidKeySpecException {
+                        return factory.generateSecret(new PBEKeySpec(password, salt, iterations, length)).getEncoded();
+                    }
+                };
+            } catch (NoSuchAlgorithmException ex) {
+                if (!provider.equals("BC")) {
+                    throw ex;
+                }
+            }
+
+            final Digest digest = digest(algorithm);
+
+            return new Derivation() {
+
+                @Override
+                public byte[] derive(char[] password, byte[] salt) {
+                    PKCS5S2ParametersGenerator generator = new PKCS5S2ParametersGenerator(digest);
+                    generator.init(PKCS5S2ParametersGenerator.PKCS5PasswordToUTF8Bytes(password), salt, iterations);
+                    return ((KeyParameter) generator.generateDerivedParameters(length)).getKey();
+                }
+            };
+        }
+
+        if (!provider.equals("BC")) {
+            throw new NoSuchAlgorithmException("No such algorithm: " + algorithm + " for provider " + provider);
+        }
+
+        if (name.equals("SCRYPT")) {
+            return new Derivation() {
+
+                @Override
+                public byte[] derive(char[] password, byte[] salt) {
+                    return SCrypt.generate(PKCS5S2ParametersGenerator.PKCS5PasswordToUTF8Bytes(password), salt,
+                            iterations, r, p, length / 8);
+                }
+            };
+        }
+
+        if (name.startsWith("HKDF")) {
+            final Digest digest = digest(algorithm);
+
+            return new Derivation() {
+
+                @Override
+                public byte[] derive(char[] password, byte[] salt) {
+                    HKDFBytesGenerator generator = new HKDFBytesGenerator(digest);
+                    byte[] key = new byte[length / 8];
+
+                    generator.init(new HKDFParameters(
+                            PKCS5S2ParametersGenerator.PKCS5PasswordToUTF8Bytes(password), salt, INFO));
+                    generator.generateBytes(key, 0, key.length);
+                    return key;
+                }
+            };
+        }
+
+        throw new NoSuchAlgorithmException("No such algorithm: " + algorithm + " for provider " + provider);
+    }
+
+    /**
+     * Returns the Bouncy Castle digest for an HMAC based algorithm.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm, ending in the HMAC digest; e.g.,
+     * PBKDF2WithHmacSHA256.
+     * @return A new digest.
+     * @throws NoSuchAlgorithmException If the digest is not supported.
+     */
+    private static Digest digest(String algorithm) throws NoSuchAlgorithmException {
+        String name = algorithm.toUpperCase();
+
+        if (name.endsWith("SHA1")) {
+            return new SHA1Digest();
+        }
+        if (name.endsWith("SHA256")) {
+            return new SHA256Digest();
+        }
+        if (name.endsWith("SHA512")) {
+            return new SHA512Digest();
+        }
+        throw new NoSuchAlgorithmException("No such digest for: " + algorithm);
+    }
+
+    /**
+     * Derivations take no input.
+     *
+     * @since 1.0
+     * @param baseInput Input file; not used by the derivations.
+     * @return Zero.
+     */
+    @Override
+    protected long inputBytes(File baseInput) {
+        return 0;
+    }
+
+    @Override
+    public SimpleMeter testEncryption(File baseInput, String algorithm, String provider) throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("Not supported: key derivation function.");
+    }
+
+    @Override
+    public SimpleMeter testDecryption(File baseInput, String algorithm, String provider) throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("Not supported: key derivation function.");
+    }
+
+    /**
+     * Access the cost parameter.
+     *
+     * @since 1.0
+     * @return PBKDF2 iterations or scrypt N.
+     */
+    public int getCost() {
+        return cost;
+    }
+
+    /**
+     * Defines the cost parameter.
+     *
+     * @since 1.0
+     * @param cost PBKDF2 iterations or scrypt N, a power of two; ignored by
+     * HKDF.
+     */
+    public void setCost(int cost) {
+        if (cost < 0) {
+            throw new IllegalArgumentException("Invalid cost: " + cost);
+        }
+        this.cost = cost;
+    }
+
+    /**
+     * Access the derived key length.
+     *
+     * @since 1.0
+     * @return Key length in bits.
+     */
+    public int getKeyLength() {
+        return keyLength;
+    }
+
+    /**
+     * Defines the derived key length.
+     *
+     * @since 1.0
+     * @param keyLength Key length in bits, a multiple of 8.
+     */
+    public void setKeyLength(int keyLength) {
+        if (keyLength <= 0 || keyLength % 8 != 0) {
+            throw new IllegalArgumentException("Invalid key length: " + keyLength);
+        }
+        this.keyLength = keyLength;
+    }
+
+    /**
+     * Access the number of derivations per experiment.
+     *
+     * @since 1.0
+     * @return Number of derivations.
+     */
+    public int getNDerivations() {
+        return nDerivations;
+    }
+
+    /**
+     * Defines the number of derivations per experiment.
+     *
+     * @since 1.0
+     * @param nDerivations Number of derivations.
+     */
+    public void setNDerivations(int nDerivations) {
+        this.nDerivations = nDerivations;
+    }
+
+    /**
+     * Access the block size for scrypt.
+     *
+     * @since 1.0
+     * @return Block size (r).
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Defines the block size for scrypt.
+     *
+     * @since 1.0
+     * @param blockSize Block size (r).
+     */
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Access the parallelization for scrypt.
+     *
+     * @since 1.0
+     * @return Parallelization (p).
+     */
+    public int getParallelization() {
+        return parallelization;
+    }
+
+    /**
+     * Defines the parallelization for scrypt.
+     *
+     * @since 1.0
+     * @param parallelization Parallelization (p).
+     */
+    public void setParallelization(int parallelization) {
+        this.parallelization = parallelization;
+    }
+}
@@ -0,0 +1,528 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.Algorithms;
+import crypto.performance.Libraries;
+import crypto.performance.TimeTester;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.KeyAgreement;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.interfaces.DHPublicKey;
+import javax.crypto.spec.DHParameterSpec;
+import performance.ConcurrentSummary;
+import performance.SimpleMeter;
+
+/**
+ * Test and measure performance for key agreements: DH, ECDH and XDH.
+ *
+ * <p>
+ * Every experiment executes a sequence of agreements against a static peer
+ * key pair, generated once per algorithm, key size and provider. Operations
+ * map to the tester's methods:
+ * </p>
+ * <ul>
+ * <li>encryption tests are ephemeral agreements, as done by one side of a
+ * handshake: an ephemeral key pair is generated and agreed with the peer's
+ * public key;</li>
+ * <li>decryption tests are the agreements alone (doPhase and generateSecret),
+ * with ephemeral key pairs generated before measuring;</li>
+ * <li>encryption/decryption tests are full exchanges: both sides generate
+ * ephemeral key pairs and agree, and the secrets are compared.</li>
+ * </ul>
+ *
+ * <p>
+ * The key size selects the group: the DH modulus size, the ECDH curve (256,
+ * 384 and 521 bits for P-256, P-384 and P-521) or the XDH curve (255 and 448
+ * bits for X25519 and X448). DH groups are taken from SunJCE's predefined
+ * groups and shared by all providers, as generating new groups of these sizes
+ * takes minutes. Results are given in agreements per second, along with the
+ * latency percentiles of each agreement, single and multi-threaded.
+ * </p>
+ *
+ * <p>
+ * XDH (X25519 and X448) is only offered by SunEC from JDK 11 onwards; on
+ * older runtimes it is not tested.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class KeyAgreementTester extends TimeTester {
+
+    /**
+     * Number of agreements per experiment.
+     *
+     * @since 1.0
+     */
+    private int nAgreements = 32;
+
+    /**
+     * Static peer key pairs, by key algorithm, key size and provider.
+     *
+     * @since 1.0
+     */
+    private final Map<String, KeyPair> peerKeys = new HashMap<>();
+
+    /**
+     * DH groups, by modulus size.
+     *
+     * @since 1.0
+     */
+    private final Map<Integer, DHParameterSpec> groups = new HashMap<>();
+
+    /**
+     * Executes the default test: DH on 2048 and 3072 bit groups, ECDH on
+     * P-256, P-384 and P-521, and X25519 and X448; ephemeral agreements and
+     * full exchanges, single and multi-threaded. Algorithms not offered by the
+     * running JDK are skipped.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/key agreements.txt");
+        int nTests = 10;
+        int[] threadCounts = threadCounts();
+
+        KeyAgreementTester agreementTester = new KeyAgreementTester();
+
+        System.out.println("Evaluating key agreements...");
+
+        agreementTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            for (Operation operation : new Operation[]{Operation.ENCRYPTION, Operation.ENCRYPTION_DECRYPTION}) {
+                //DH
+                agreementTester.execAgreementTests(nTests, new int[]{2048, 3072}, threadCounts, file, out, "DH",
+                        operation, Algorithms.providers("KeyAgreement", "DH", "BC", "SunJCE"));
+                //ECDH - P-256, P-384, P-521
+                agreementTester.execAgreementTests(nTests, new int[]{256, 384, 521}, threadCounts, file, out, "ECDH",
+                        operation, Algorithms.providers("KeyAgreement", "ECDH", "BC", "SunEC"));
+                //ECDH - FlexiEC, under its own name and with no default parameters for 521 bits
+                agreementTester.execAgreementTests(nTests, new int[]{256, 384}, threadCounts, file, out, "ECSVDPDH",
+                        operation, Algorithms.providers("KeyAgreement", "ECSVDPDH", "FlexiEC"));
+                //X25519 and X448, JDK 11 onwards
+                agreementTester.execAgreementTests(nTests, new int[]{255, 448}, threadCounts, file, out, "XDH",
+                        operation, Algorithms.providers("KeyAgreement", "XDH", "SunEC"));
+            }
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(KeyAgreementTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each key size, on one thread and then on several threads at once.
+     *
+     * <p>
+     * After the summaries of each provider, the agreements per second and the
+     * latency percentiles for each key size and number of threads are
+     * reported.
+     * </p>
+     *
+     * @since 1.0
+     * @param nTests Number of tests to run, on each thread.
+     * @param keySizes Key sizes, in bits.
+     * @param threadCounts Numbers of threads to evaluate.
+     * @param baseInput Input file; not read, agreements take no input.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param operation Operation to test.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see #threadCounts()
+     */
+    public void execAgreementTests(int nTests, int[] keySizes, int[] threadCounts, File baseInput, PrintStream out,
+            String algorithm, Operation operation, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        for (String provider : providers) {
+            String name = algorithm + "-" + provider + "-" + operationName(operation);
+            List<ConcurrentSummary> summaries = new ArrayList<>();
+
+            for (int keySize : keySizes) {
+                Experiment experiment = experiment(baseInput, algorithm, operation, keySize, provider);
+
+                report(execTests(nTests, baseInput, name + "-" + keySize, experiment), out);
+
+                for (int nThreads : threadCounts) {
+                    ConcurrentSummary summary = execConcurrentTests(nTests, nThreads, baseInput,
+                            name + "-" + keySize + " (" + nThreads + " threads)", experiment);
+                    summary.print(out);
+                    out.println();
+                    summaries.add(summary);
+                }
+            }
+
+            out.println(label(name) + " agreements");
+            out.println(String.format("%15s\t%8s\t%12s\t%10s\t%10s\t%10s\t%s",
+                    "Key Size", "Threads", "ops/s", "p50", "p99", "p99.9", TimeUnit.MICROSECONDS.name() + "/operation"));
+            for (int i = 0; i < summaries.size(); i++) {
+                ConcurrentSummary summary = summaries.get(i);
+
+                out.println(String.format("%15d\t%8d\t%12.2f\t%10.2f\t%10.2f\t%10.2f",
+                        keySizes[i / threadCounts.length],
+                        summary.getNThreads(),
+                        summary.getOperationsPerSecond(),
+                        summary.getLatencies().getPercentile(50, TimeUnit.MICROSECONDS),
+                        summary.getLatencies().getPercentile(99, TimeUnit.MICROSECONDS),
+                        summary.getLatencies().getPercentile(99.9, TimeUnit.MICROSECONDS)));
+            }
+            out.println();
+        }
+    }
+
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(algorithm, keySize, provider, Operation.ENCRYPTION_DECRYPTION);
+    }
+
+    @Override
+    public SimpleMeter testEncryption(File baseInput, String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(algorithm, keySize, provider, Operation.ENCRYPTION);
+    }
+
+    @Override
+    public SimpleMeter testDecryption(File baseInput, String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(algorithm, keySize, provider, Operation.DECRYPTION);
+    }
+
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("For key agreements a key size needs to be defined.");
+    }
+
+    @Override
+    public SimpleMeter testEncryption(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("For key agreements a key size needs to be defined.");
+    }
+
+    @Override
+    public SimpleMeter testDecryption(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("For key agreements a key size needs to be defined.");
+    }
+
+    /**
+     * Test the specified key agreement on a sequence of agreements.
+     *
+     * <p>
+     * The peer's key pair and, for agreements alone, the ephemeral key pairs
+     * are prepared before measuring; the latency of each agreement is
+     * recorded, and the shared secrets are accounted as the bytes processed.
+     * </p>
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param keySize Key size, in bits.
+     * @param provider Library from where the algorithm comes.
+     * @param operation Operation to test.
+     * @return A SimpleMeter containing the time measurements, or null if the
+     * test failed.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    protected SimpleMeter test(String algorithm, int keySize, String provider, Operation operation)
+            throws NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException,
+            InvalidAlgorithmParameterException {
+
+        SimpleMeter meter = new SimpleMeter();
+        SecureRandom randGenerator = new SecureRandom();
+
+        meter.phase(PHASE_KEYGEN);
+        KeyPair peer = peerKeys(algorithm, keySize, provider);
+
+        meter.phase(PHASE_LOOKUP);
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm(algorithm), provider);
+        KeyAgreement agreement = KeyAgreement.getInstance(algorithm, provider);
+        KeyAgreement peerAgreement = KeyAgreement.getInstance(algorithm, provider);
+
+        meter.phase(PHASE_INIT);
+        initialize(generator, algorithm, keySize, randGenerator);
+        meter.endPhase();
+
+        try {
+            KeyPair[] ephemeral = null;
+
+            if (operation == Operation.DECRYPTION) {
+                ephemeral = new KeyPair[nAgreements];
+
+                for (int i = 0; i < nAgreements; i++) {
+                    ephemeral[i] = generator.generateKeyPair();
+                }
+            }
+
+            long bytes = 0;
+
+            meter.start();
+            meter.phase(PHASE_BULK);
+
+            for (int i = 0; i < nAgreements; i++) {
+                long start = System.nanoTime();
+
+                switch (operation) {
+                    case ENCRYPTION:
+                        bytes += agree(agreement, generator.generateKeyPair().getPrivate(), peer.getPublic()).length;
+                        break;
+                    case DECRYPTION:
+                        bytes += agree(agreement, ephemeral[i].getPrivate(), peer.getPublic()).length;
+                        break;
+                    default:
+                        KeyPair local = generator.generateKeyPair();
+                        KeyPair remote = generator.generateKeyPair();
+                        byte[] secret = agree(agreement, local.getPrivate(), remote.getPublic());
+
+                        if (!Arrays.equals(secret, agree(peerAgreement, remote.getPrivate(), local.getPublic()))) {
+                            throw new GeneralSecurityException("Shared secrets do not match: " + algorithm);
+                        }
+                        bytes += secret.length;
+                }
+
+                meter.recordLatency(System.nanoTime() - start);
+            }
+
+            meter.endPhase();
+            meter.stop();
+
+            meter.addBytes(bytes);
+            meter.addOperations(nAgreements);
+        } catch (GeneralSecurityException ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Executes one agreement.
+     *
+     * @since 1.0
+     * @param agreement Key agreement, from the same provider as the keys.
+     * @param privateKey Own private key.
+     * @param publicKey Other party's public key.
+     * @return Shared secret.
+     * @throws GeneralSecurityException If the agreement fails.
+     */
+    private static byte[] agree(KeyAgreement agreement, PrivateKey privateKey, PublicKey publicKey)
+            throws GeneralSecurityException {
+        agreement.init(privateKey);
+        agreement.doPhase(publicKey, true);
+        return agreement.generateSecret();
+    }
+
+    /**
+     * Returns the peer's key pair for an algorithm, key size and provider,
+     * generating it on first use.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param keySize Key size, in bits.
+     * @param provider Library from where the algorithm comes.
+     * @return A key pair.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws java.security.InvalidAlgorithmParameterException
+     */
+    protected KeyPair peerKeys(String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+
+        String keyAlgorithm = keyAlgorithm(algorithm);
+        String id = keyAlgorithm + "-" + keySize + "-" + provider;
+
+        synchronized (peerKeys) {
+            KeyPair key = peerKeys.get(id);
+
+            if (key == null) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm, provider);
+                initialize(generator, algorithm, keySize, new SecureRandom());
+                key = generator.generateKeyPair();
+                peerKeys.put(id, key);
+            }
+
+            return key;
+        }
+    }
+
+    /**
+     * Initializes a key pair generator for a key size; DH generators are given
+     * the shared group of that size.
+     *
+     * @since 1.0
+     * @param generator Generator to initialize.
+     * @param algorithm Algorithm to be used.
+     * @param keySize Key size, in bits.
+     * @param randGenerator Source of randomness.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws java.security.InvalidAlgorithmParameterException
+     */
+    private void initialize(KeyPairGenerator generator, String algorithm, int keySize, SecureRandom randGenerator)
+            throws NoSuchProviderException, NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+
+        if (keyAlgorithm(algorithm).equals("DH")) {
+            generator.initialize(group(keySize), randGenerator);
+        } else {
+            generator.initialize(keySize, randGenerator);
+        }
+    }
+
+    /**
+     * Returns the DH group of a given size, from SunJCE's predefined groups.
+     *
+     * @since 1.0
+     * @param keySize Modulus size, in bits.
+     * @return Group parameters.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     */
+    private DHParameterSpec group(int keySize) throws NoSuchProviderException, NoSuchAlgorithmException {
+        synchronized (groups) {
+            DHParameterSpec group = groups.get(keySize);
+
+            if (group == null) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("DH", "SunJCE");
+                generator.initialize(keySize);
+                group = ((DHPublicKey) generator.generateKeyPair().getPublic()).getParams();
+                groups.put(keySize, group);
+            }
+
+            return group;
+        }
+    }
+
+    /**
+     * Returns the key algorithm for a key agreement algorithm.
+     *
+     * @since 1.0
+     * @param algorithm Key agreement algorithm.
+     * @return Key algorithm: DH, XDH or EC.
+     */
+    protected static String keyAlgorithm(String algorithm) {
+        switch (algorithm) {
+            case "DH":
+            case "DiffieHellman":
+                return "DH";
+            case "XDH":
+            case "X25519":
+            case "X448":
+                return "XDH";
+            default:
+                return "EC";
+        }
+    }
+
+    /**
+     * Returns the name of an operation, for key agreements.
+     *
+     * @since 1.0
+     * @param operation Operation.
+     * @return ephemeral, static or exchange.
+     */
+    private static String operationName(Operation operation) {
+        switch (operation) {
+            case ENCRYPTION:
+                return "ephemeral";
+            case DECRYPTION:
+                return "static";
+            default:
+                return "exchange";
+        }
+    }
+
+    /**
+     * Access the number of agreements per experiment.
+     *
+     * @since 1.0
+     * @return Number of agreements.
+     */
+    public int getNAgreements() {
+        return nAgreements;
+    }
+
+    /**
+     * Defines the number of agreements per experiment.
+     *
+     * @since 1.0
+     * @param nAgreements Number of agreements.
+     */
+    public void setNAgreements(int nAgreements) {
+        this.nAgreements = nAgreements;
+    }
+}
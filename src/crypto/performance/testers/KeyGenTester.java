@@ -0,0 +1,360 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.KeyPool;
+import crypto.performance.Libraries;
+import crypto.performance.TimeTester;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.ProviderException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.NoSuchPaddingException;
+import performance.SimpleMeter;
+import performance.TimerSummary;
+
+/**
+ * Test and measure performance for key pair generation.
+ *
+ * <p>
+ * Each experiment generates a batch of key pairs, sequentially or in parallel
+ * on a fork-join pool, as done by {@link KeyPool}; generators are created
+ * and initialized before measuring. The generation time of every key pair is
+ * recorded: RSA generation searches for primes, so its latency varies widely
+ * and is better described by percentiles than by averages.
+ * </p>
+ *
+ * <p>
+ * A key size is required; for EC it selects the curve (256, 384 and 521 bits
+ * for P-256, P-384 and P-521). The operation is ignored: there is only
+ * generation.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class KeyGenTester extends TimeTester {
+
+    /**
+     * Number of key pairs per experiment.
+     *
+     * @since 1.0
+     */
+    private int nKeys = 16;
+
+    /**
+     * Number of generating threads; 1 for sequential generation.
+     *
+     * @since 1.0
+     */
+    private int parallelism = 1;
+
+    /**
+     * Pool for parallel generation; null for sequential generation.
+     *
+     * @since 1.0
+     */
+    private ForkJoinPool forkJoinPool;
+
+    /**
+     * Executes the default test: RSA from 1024 to 4096 bits and EC on P-256,
+     * P-384 and P-521, sequentially and on all available processors.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/key generation.txt");
+        int nTests = 5;
+        int[] parallelisms = parallelisms();
+
+        KeyGenTester keyGenTester = new KeyGenTester();
+        keyGenTester.disableWarmUp();//Each experiment already generates a batch
+
+        System.out.println("Evaluating key generation...");
+
+        keyGenTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            //RSA
+            keyGenTester.execKeyGenTests(nTests, new int[]{1024, 2048, 3072, 4096}, parallelisms, file, out, "RSA",
+                    new String[]{"BC", "FlexiCore", "SunRsaSign"});
+            //EC - P-256, P-384, P-521
+            keyGenTester.execKeyGenTests(nTests, new int[]{256, 384, 521}, parallelisms, file, out, "EC",
+                    new String[]{"BC", "SunEC"});
+            //EC - FlexiEC has no default parameters for 521 bits
+            keyGenTester.execKeyGenTests(nTests, new int[]{256, 384}, parallelisms, file, out, "EC",
+                    new String[]{"FlexiEC"});
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(KeyGenTester.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            keyGenTester.setParallelism(1);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Returns the default parallelisms: sequential and all available
+     * processors.
+     *
+     * @since 1.0
+     * @return Numbers of generating threads.
+     */
+    public static int[] parallelisms() {
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        return processors > 1 ? new int[]{1, processors} : new int[]{1};
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each key size and parallelism.
+     *
+     * <p>
+     * After the summaries of each provider, the key pairs generated per
+     * second and the generation time percentiles, in milliseconds, are
+     * reported for each key size and parallelism. The parallelism in use
+     * before the tests is restored at the end.
+     * </p>
+     *
+     * @since 1.0
+     * @param nTests Number of tests to run.
+     * @param keySizes Key sizes, in bits.
+     * @param parallelisms Numbers of generating threads; 1 for sequential
+     * generation.
+     * @param baseInput Input file; not used by the generation.
+     * @param out Results destination.
+     * @param algorithm Key algorithm; e.g., RSA or EC.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see #parallelisms()
+     */
+    public void execKeyGenTests(int nTests, int[] keySizes, int[] parallelisms, File baseInput, PrintStream out,
+            String algorithm, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        int previousParallelism = getParallelism();
+
+        try {
+            for (String provider : providers) {
+                String name = algorithm + "-" + provider + "-keygen";
+                TimerSummary[] summaries = new TimerSummary[keySizes.length * parallelisms.length];
+
+                for (int i = 0; i < keySizes.length; i++) {
+                    Experiment experiment = experiment(baseInput, algorithm, Operation.ENCRYPTION_DECRYPTION,
+                            keySizes[i], provider);
+
+                    for (int j = 0; j < parallelisms.length; j++) {
+                        setParallelism(parallelisms[j]);
+
+                        TimerSummary summary = execTests(nTests, baseInput,
+                                name + "-" + keySizes[i] + "-" + parallelisms[j] + " threads", experiment);
+                        report(summary, out);
+                        summaries[i * parallelisms.length + j] = summary;
+                    }
+                }
+
+                out.println(label(name) + " key generation");
+                out.println(String.format("%15s\t%10s\t%12s\t%10s\t%10s\t%10s\t%10s\t%s",
+                        "Key Size", "Threads", "keys/s", "p50", "p90", "p99", "max",
+                        TimeUnit.MILLISECONDS.name() + "/key"));
+                for (int i = 0; i < summaries.length; i++) {
+                    TimerSummary summary = summaries[i];
+
+                    out.println(String.format("%15d\t%10d\t%12.2f\t%10.2f\t%10.2f\t%10.2f\t%10.2f",
+                            keySizes[i / parallelisms.length],
+                            parallelisms[i % parallelisms.length],
+                            summary.getOperationsPerSecond(),
+                            summary.getLatencies().getPercentile(50, TimeUnit.MILLISECONDS),
+                            summary.getLatencies().getPercentile(90, TimeUnit.MILLISECONDS),
+                            summary.getLatencies().getPercentile(99, TimeUnit.MILLISECONDS),
+                            summary.getLatencies().getMax(TimeUnit.MILLISECONDS)));
+                }
+                out.println();
+            }
+        } finally {
+            setParallelism(previousParallelism);
+        }
+    }
+
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        SimpleMeter meter = new SimpleMeter();
+        long[] latencies = new long[nKeys];
+
+        meter.phase(PHASE_LOOKUP);
+        KeyPairGenerator[] generators = KeyPool.generators(algorithm, keySize, provider, nKeys, forkJoinPool);
+        meter.endPhase();
+
+        try {
+            meter.start();
+            meter.phase(PHASE_KEYGEN);
+
+            KeyPool.generate(generators, nKeys, forkJoinPool, latencies);
+
+            meter.endPhase();
+            meter.stop();
+        } catch (ProviderException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+
+        for (long latency : latencies) {
+            meter.recordLatency(latency);
+        }
+        meter.addOperations(nKeys);
+
+        return meter;
+    }
+
+    /**
+     * Key generation takes no input.
+     *
+     * @since 1.0
+     * @param baseInput Input file; not used.
+     * @return Zero.
+     */
+    @Override
+    protected long inputBytes(File baseInput) {
+        return 0;
+    }
+
+    @Override
+    public SimpleMeter testEncryption(File baseInput, String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(baseInput, algorithm, keySize, provider);
+    }
+
+    @Override
+    public SimpleMeter testDecryption(File baseInput, String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(baseInput, algorithm, keySize, provider);
+    }
+
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("For key generation a key size needs to be defined.");
+    }
+
+    @Override
+    public SimpleMeter testEncryption(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("For key generation a key size needs to be defined.");
+    }
+
+    @Override
+    public SimpleMeter testDecryption(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("For key generation a key size needs to be defined.");
+    }
+
+    /**
+     * Access the number of key pairs per experiment.
+     *
+     * @since 1.0
+     * @return Number of key pairs.
+     */
+    public int getNKeys() {
+        return nKeys;
+    }
+
+    /**
+     * Defines the number of key pairs per experiment.
+     *
+     * @since 1.0
+     * @param nKeys Number of key pairs.
+     */
+    public void setNKeys(int nKeys) {
+        if (nKeys < 1) {
+            throw new IllegalArgumentException("Invalid number of keys: " + nKeys);
+        }
+        this.nKeys = nKeys;
+    }
+
+    /**
+     * Access the number of generating threads.
+     *
+     * @since 1.0
+     * @return Number of threads; 1 for sequential generation.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Defines the number of generating threads; the previous fork-join pool,
+     * if any, is shut down.
+     *
+     * @since 1.0
+     * @param parallelism Number of threads; 1 for sequential generation.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        if (parallelism == this.parallelism) {
+            return;
+        }
+
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
+        forkJoinPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        this.parallelism = parallelism;
+    }
+}
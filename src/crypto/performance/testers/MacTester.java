@@ -0,0 +1,510 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.Libraries;
+import crypto.performance.TimeTester;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.IvParameterSpec;
+import performance.SimpleMeter;
+import performance.TimerSummary;
+
+/**
+ * Test and measure performance for message authentication codes (MAC): HMAC,
+ * CMAC, GMAC and Poly1305.
+ *
+ * <p>
+ * By default, the whole file is authenticated as a single message, processed
+ * as by {@link HashTester}. With a message size, the file is cut into small
+ * messages and each one is authenticated with an update followed by a
+ * doFinal, reusing the key: HMAC and CMAC are initialized once, GMAC and
+ * Poly1305 are initialized for every message with a new nonce, generated
+ * before measuring. Results for messages are given in operations per second,
+ * along with the latency percentiles of each operation.
+ * </p>
+ *
+ * <p>
+ * Not every provider offers every scheme: Bouncy Castle has all of them
+ * (AESCMAC, AES-GMAC, POLY1305-AES), FlexiCore has HMAC and CMAC
+ * (CmacAES128), SunJCE has HMAC only.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class MacTester extends TimeTester {
+
+    /**
+     * Message size in bytes; zero to authenticate the whole file.
+     *
+     * @since 1.0
+     */
+    private int messageSize = 0;
+
+    /**
+     * Number of messages per experiment.
+     *
+     * @since 1.0
+     */
+    private int nMessages = 4096;
+
+    /**
+     * Executes the default test: HmacSHA1, HmacSHA256, HmacSHA512, AES-CMAC,
+     * AES-GMAC and Poly1305-AES, on the whole file and on messages from 32
+     * bytes to 1 KiB.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/mac.txt");
+        int nTests = 10;
+        int[] messageSizes = messageSizes();
+
+        MacTester macTester = new MacTester();
+
+        System.out.println("Evaluating MACs...");
+
+        macTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            //Whole file
+            macTester.execTests(nTests, file, out, "HmacSHA1", new String[]{"BC", "FlexiCore", "SunJCE"});
+            macTester.execTests(nTests, file, out, "HmacSHA256", new String[]{"BC", "FlexiCore", "SunJCE"});
+            macTester.execTests(nTests, file, out, "HmacSHA512", new String[]{"BC", "FlexiCore", "SunJCE"});
+            macTester.execTests(nTests, file, out, "AESCMAC", new String[]{"BC"});
+            macTester.execTests(nTests, file, out, "CmacAES128", new String[]{"FlexiCore"});
+            macTester.execTests(nTests, file, out, "AES-GMAC", new String[]{"BC"});
+            macTester.execTests(nTests, file, out, "POLY1305-AES", new String[]{"BC"});
+
+            //Messages, key reuse
+            macTester.execMessageSweep(nTests, messageSizes, file, out, "HmacSHA1",
+                    new String[]{"BC", "FlexiCore", "SunJCE"});
+            macTester.execMessageSweep(nTests, messageSizes, file, out, "HmacSHA256",
+                    new String[]{"BC", "FlexiCore", "SunJCE"});
+            macTester.execMessageSweep(nTests, messageSizes, file, out, "HmacSHA512",
+                    new String[]{"BC", "FlexiCore", "SunJCE"});
+            macTester.execMessageSweep(nTests, messageSizes, file, out, "AESCMAC", new String[]{"BC"});
+            macTester.execMessageSweep(nTests, messageSizes, file, out, "CmacAES128", new String[]{"FlexiCore"});
+            macTester.execMessageSweep(nTests, messageSizes, file, out, "AES-GMAC", new String[]{"BC"});
+            macTester.execMessageSweep(nTests, messageSizes, file, out, "POLY1305-AES", new String[]{"BC"});
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(MacTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Returns the default message sizes.
+     *
+     * @since 1.0
+     * @return Message sizes from 32 bytes (tokens) to 1 KiB.
+     */
+    public static int[] messageSizes() {
+        return new int[]{32, 64, 256, 1024};
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each message size.
+     *
+     * <p>
+     * After the summaries of each provider, the operations per second and the
+     * latency percentiles for each message size are reported. The message
+     * size in use before the sweep is restored at the end.
+     * </p>
+     *
+     * @since 1.0
+     * @param nTests Number of tests to run.
+     * @param messageSizes Message sizes, in bytes.
+     * @param baseInput Input file, from where messages are cut.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see #messageSizes()
+     */
+    public void execMessageSweep(int nTests, int[] messageSizes, File baseInput, PrintStream out,
+            String algorithm, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        int previousMessageSize = getMessageSize();
+
+        try {
+            for (String provider : providers) {
+                String name = algorithm + "-" + provider;
+                Experiment experiment = experiment(baseInput, algorithm, Operation.ENCRYPTION_DECRYPTION, 0, provider);
+                TimerSummary[] summaries = new TimerSummary[messageSizes.length];
+
+                for (int i = 0; i < messageSizes.length; i++) {
+                    setMessageSize(messageSizes[i]);
+
+                    summaries[i] = execTests(nTests, baseInput, name + "-" + messageSizes[i] + "B", experiment);
+                    report(summaries[i], out);
+                }
+
+                out.println(label(name) + " messages");
+                out.println(String.format("%15s\t%12s\t%10s\t%10s\t%10s\t%s",
+                        "Message Size", "ops/s", "p50", "p99", "p99.9", TimeUnit.MICROSECONDS.name() + "/operation"));
+                for (int i = 0; i < messageSizes.length; i++) {
+                    out.println(String.format("%15d\t%12.2f\t%10.2f\t%10.2f\t%10.2f",
+                            messageSizes[i],
+                            summaries[i].getOperationsPerSecond(),
+                            summaries[i].getLatencies().getPercentile(50, TimeUnit.MICROSECONDS),
+                            summaries[i].getLatencies().getPercentile(99, TimeUnit.MICROSECONDS),
+                            summaries[i].getLatencies().getPercentile(99.9, TimeUnit.MICROSECONDS)));
+                }
+                out.println();
+            }
+        } finally {
+            setMessageSize(previousMessageSize);
+        }
+    }
+
+    /**
+     * Test the specified scheme, on the whole file or on messages.
+     *
+     * @since 1.0
+     * @param baseInput Input file to run the tests.
+     * @param algorithm Algorithm to be used.
+     * @param provider Library from where the algorithm comes.
+     * @return A SimpleMeter containing the time measurements, or null if the
+     * test failed.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException,
+            InvalidAlgorithmParameterException {
+
+        SimpleMeter meter = new SimpleMeter();
+
+        meter.phase(PHASE_LOOKUP);
+        Mac mac = Mac.getInstance(algorithm, provider);
+
+        meter.phase(PHASE_KEYGEN);
+        SecretKey key = key(algorithm, provider);
+        SecureRandom randGenerator = new SecureRandom();
+        meter.endPhase();
+
+        if (messageSize > 0) {
+            return testMessages(baseInput, mac, key, randGenerator, meter);
+        }
+
+        meter.phase(PHASE_INIT);
+        init(mac, key, algorithm, randGenerator);
+        meter.endPhase();
+
+        try {
+            if (getInputMode() != InputMode.STREAM) {
+                ByteBuffer[] input = inputBuffers(baseInput);
+                int chunkSize = getBulkChunkSize();
+
+                meter.start();
+                meter.phase(PHASE_BULK);
+
+                for (ByteBuffer region : input) {
+                    ByteBuffer chunk = region.duplicate();
+
+                    while (region.hasRemaining()) {
+                        chunk.limit(Math.min(region.position() + chunkSize, region.limit()));
+                        chunk.position(region.position());
+                        region.position(chunk.limit());
+
+                        mac.update(chunk);
+                    }
+                }
+            } else {
+                try (BufferedInputStream input = new BufferedInputStream(new FileInputStream(baseInput))) {
+                    byte[] chunk = new byte[getBulkChunkSize()];
+                    int length;
+
+                    meter.start();
+                    meter.phase(PHASE_BULK);
+
+                    while ((length = input.read(chunk)) > -1) {
+                        mac.update(chunk, 0, length);
+                    }
+                }
+            }
+
+            meter.phase(PHASE_FINAL);
+            mac.doFinal();
+
+            meter.endPhase();
+            meter.stop();
+
+            meter.addBytes(baseInput.length());
+            meter.addOperations(1);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Test a MAC on small messages, reusing the key.
+     *
+     * <p>
+     * Nonces (GMAC, Poly1305) and message offsets are prepared before
+     * measuring; the latency of each message is recorded.
+     * </p>
+     *
+     * @since 1.0
+     * @param baseInput Input file, from where messages are cut.
+     * @param mac MAC instance.
+     * @param key Key to use.
+     * @param randGenerator Source for the nonces.
+     * @param meter Meter for the measurement, not yet started.
+     * @return The stopped meter, or null if the test failed.
+     *
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    private SimpleMeter testMessages(File baseInput, Mac mac, SecretKey key, SecureRandom randGenerator,
+            SimpleMeter meter) throws InvalidKeyException, InvalidAlgorithmParameterException {
+
+        String algorithm = mac.getAlgorithm();
+        int nonceLength = nonceLength(algorithm);
+        IvParameterSpec[] nonces = null;
+
+        if (nonceLength > 0) {
+            nonces = new IvParameterSpec[nMessages];
+            for (int i = 0; i < nMessages; i++) {
+                byte[] nonce = new byte[nonceLength];
+                randGenerator.nextBytes(nonce);
+                nonces[i] = new IvParameterSpec(nonce);
+            }
+        }
+
+        meter.phase(PHASE_INIT);
+        init(mac, key, algorithm, randGenerator);
+        meter.endPhase();
+
+        try {
+            byte[] input = loadInput(baseInput);
+            int[] offsets = SmallMessageTester.messageOffsets(input.length, messageSize, nMessages);
+            byte[] tag = new byte[mac.getMacLength()];
+
+            meter.start();
+            meter.phase(PHASE_BULK);
+
+            for (int i = 0; i < nMessages; i++) {
+                long start = System.nanoTime();
+
+                if (nonces != null) {
+                    mac.init(key, nonces[i]);
+                }
+                mac.update(input, offsets[i], messageSize);
+                mac.doFinal(tag, 0);
+
+                meter.recordLatency(System.nanoTime() - start);
+            }
+
+            meter.endPhase();
+            meter.stop();
+
+            meter.addBytes((long) nMessages * messageSize);
+            meter.addOperations(nMessages);
+        } catch (IOException | ShortBufferException ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Initializes a MAC, with a random nonce when the algorithm requires one.
+     *
+     * @since 1.0
+     * @param mac MAC to initialize.
+     * @param key Key to use.
+     * @param algorithm Algorithm name.
+     * @param randGenerator Source for the nonce.
+     *
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    private static void init(Mac mac, SecretKey key, String algorithm, SecureRandom randGenerator)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+
+        int nonceLength = nonceLength(algorithm);
+
+        if (nonceLength > 0) {
+            byte[] nonce = new byte[nonceLength];
+            randGenerator.nextBytes(nonce);
+            mac.init(key, new IvParameterSpec(nonce));
+        } else {
+            mac.init(key);
+        }
+    }
+
+    /**
+     * Generates a key for a MAC.
+     *
+     * <p>
+     * The provider's key generator for the algorithm is used when there is
+     * one; CMAC, without key generators, takes an AES key from the same
+     * provider (FlexiCore only accepts its own keys).
+     * </p>
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param provider Library from where the algorithm comes.
+     * @return A new key.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     */
+    protected static SecretKey key(String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException {
+
+        KeyGenerator keyGenerator;
+
+        try {
+            keyGenerator = KeyGenerator.getInstance(algorithm, provider);
+        } catch (NoSuchAlgorithmException ex) {
+            keyGenerator = KeyGenerator.getInstance("AES", provider);
+            keyGenerator.init(128);
+        }
+
+        return keyGenerator.generateKey();
+    }
+
+    /**
+     * Returns the nonce length required by a MAC.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm name.
+     * @return Nonce length in bytes: 12 for GMAC, 16 for Poly1305 and zero
+     * for MACs without nonces.
+     */
+    protected static int nonceLength(String algorithm) {
+        String name = algorithm.toUpperCase();
+
+        if (name.endsWith("GMAC")) {
+            return 12;
+        }
+        if (name.startsWith("POLY1305")) {
+            return 16;
+        }
+        return 0;
+    }
+
+    @Override
+    public SimpleMeter testEncryption(File baseInput, String algorithm, String provider) throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("Not supported: MAC.");
+    }
+
+    @Override
+    public SimpleMeter testDecryption(File baseInput, String algorithm, String provider) throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException, InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("Not supported: MAC.");
+    }
+
+    /**
+     * Access the message size.
+     *
+     * @since 1.0
+     * @return Message size in bytes; zero for the whole file.
+     */
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    /**
+     * Defines the message size.
+     *
+     * @since 1.0
+     * @param messageSize Message size in bytes; zero to authenticate the
+     * whole file.
+     */
+    public void setMessageSize(int messageSize) {
+        if (messageSize < 0) {
+            throw new IllegalArgumentException("Invalid message size: " + messageSize);
+        }
+        this.messageSize = messageSize;
+    }
+
+    /**
+     * Access the number of messages per experiment.
+     *
+     * @since 1.0
+     * @return Number of messages.
+     */
+    public int getNMessages() {
+        return nMessages;
+    }
+
+    /**
+     * Defines the number of messages per experiment.
+     *
+     * @since 1.0
+     * @param nMessages Number of messages.
+     */
+    public void setNMessages(int nMessages) {
+        this.nMessages = nMessages;
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.Algorithms;
+import crypto.performance.Libraries;
+import crypto.performance.ParallelHasher;
+import crypto.performance.SyntheticPayload;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.NoSuchPaddingException;
+import performance.SimpleMeter;
+import performance.TimerSummary;
+
+/**
+ * Test and measure performance for parallel hashing, on a fork-join pool.
+ *
+ * <p>
+ * Two modes are available: a directory of many files, each file hashed by
+ * one worker, and a single file hashed as a Merkle tree of fixed-size leaves,
+ * subtrees hashed by different workers; see {@link ParallelHasher}. Results
+ * are given in files (or leaves) per second and throughput, for each number
+ * of workers, along with the speedup over the first one.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class ParallelHashTester extends HashTester {
+
+    /**
+     * Parallel hashing modes.
+     *
+     * @since 1.0
+     */
+    public enum Mode {
+
+        /**
+         * Every file of a directory, one digest per file.
+         */
+        FILES,
+        /**
+         * A single file, as a Merkle tree.
+         */
+        TREE
+    }
+
+    /**
+     * Parallel hashing mode.
+     *
+     * @since 1.0
+     */
+    private Mode mode = Mode.FILES;
+
+    /**
+     * Leaf size for trees, in bytes.
+     *
+     * @since 1.0
+     */
+    private int leafSize = ParallelHasher.DEFAULT_LEAF_SIZE;
+
+    /**
+     * Pool where hashing is done.
+     *
+     * @since 1.0
+     */
+    private ForkJoinPool forkJoinPool = new ForkJoinPool(1);
+
+    /**
+     * Executes the default test, with a 1 GiB file for trees.
+     *
+     * @since 1.0
+     * @see #run(long)
+     */
+    public static void run() {
+        run(1024L * 1024 * 1024);
+    }
+
+    /**
+     * Executes the default test: SHA-256 and SHA-512 on 4096 files of 16 KiB,
+     * and as Merkle trees of 1 MiB leaves, for 1 to all available processors.
+     *
+     * <p>
+     * Inputs are synthetic payloads, written into data/payloads on the first
+     * run and reused afterwards.
+     * </p>
+     *
+     * @since 1.0
+     * @param treeSize Size of the file hashed as a tree, in bytes.
+     */
+    public static void run(long treeSize) {
+
+        Libraries.registerProviders();
+
+        File payloads = new File("data/payloads");
+        File results = new File("data/results/parallel hash.txt");
+        int nTests = 5;
+        int[] threadCounts = threadCounts();
+
+        ParallelHashTester hashTester = new ParallelHashTester();
+
+        //Libraries
+        String[] libraries = new String[]{"BC", "FlexiCore", "SUN"};
+
+        System.out.println("Evaluating parallel hashing...");
+
+        hashTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            File directory = files(new File(payloads, "files"), 4096, 16 * 1024);
+            File tree = new SyntheticPayload(treeSize).materialize(payloads);
+
+            for (String algorithm : new String[]{"SHA-256", "SHA-512"}) {
+                String[] providers = Algorithms.providers("MessageDigest", algorithm, libraries);
+
+                hashTester.setMode(Mode.FILES);
+                hashTester.execParallelSweep(nTests, threadCounts, directory, out, algorithm, providers);
+
+                hashTester.setMode(Mode.TREE);
+                hashTester.execParallelSweep(nTests, threadCounts, tree, out, algorithm, providers);
+            }
+
+        } catch (IOException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException |
+                InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(ParallelHashTester.class.getName()).log(Level.SEVERE, null, ex);
+        } finally {
+            hashTester.setParallelism(1);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Writes synthetic files into a directory, unless already written.
+     *
+     * @since 1.0
+     * @param directory Destination directory, created if needed.
+     * @param nFiles Number of files.
+     * @param size Size of each file, in bytes.
+     * @return The directory.
+     * @throws IOException If a file can not be written.
+     */
+    public static File files(File directory, int nFiles, long size) throws IOException {
+        for (int i = 0; i < nFiles; i++) {
+            new SyntheticPayload(size, SyntheticPayload.DEFAULT_SEED + i).materialize(directory);
+        }
+
+        return directory;
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each number of workers.
+     *
+     * <p>
+     * After the summaries of each provider, the files (or leaves) per second,
+     * the throughput and the speedup over the first number of workers are
+     * reported. The parallelism in use before the sweep is restored at the
+     * end.
+     * </p>
+     *
+     * @since 1.0
+     * @param nTests Number of tests to run.
+     * @param parallelisms Numbers of workers.
+     * @param baseInput Directory of files, or file for trees.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see #threadCounts()
+     */
+    public void execParallelSweep(int nTests, int[] parallelisms, File baseInput, PrintStream out,
+            String algorithm, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        int previousParallelism = getParallelism();
+        String unit = mode == Mode.FILES ? "files/s" : "leaves/s";
+
+        try {
+            for (String provider : providers) {
+                String name = algorithm + "-" + provider + "-" + mode.name().toLowerCase();
+                Experiment experiment = experiment(baseInput, algorithm, Operation.ENCRYPTION_DECRYPTION, 0, provider);
+                TimerSummary[] summaries = new TimerSummary[parallelisms.length];
+
+                for (int i = 0; i < parallelisms.length; i++) {
+                    setParallelism(parallelisms[i]);
+
+                    summaries[i] = execTests(nTests, baseInput, name + "-" + parallelisms[i] + " threads", experiment);
+                    report(summaries[i], out);
+                }
+
+                out.println(label(name) + " scaling");
+                out.println(String.format("%10s\t%12s\t%10s\t%10s\t%10s",
+                        "Threads", unit, "MB/s", "GB/s", "Speedup"));
+                for (int i = 0; i < parallelisms.length; i++) {
+                    out.println(String.format("%10d\t%12.2f\t%10.2f\t%10.3f\t%10.2f",
+                            parallelisms[i],
+                            summaries[i].getOperationsPerSecond(),
+                            summaries[i].getThroughput(),
+                            summaries[i].getThroughput() / 1024,
+                            summaries[i].getThroughput() / summaries[0].getThroughput()));
+                }
+                out.println();
+            }
+        } finally {
+            setParallelism(previousParallelism);
+        }
+    }
+
+    /**
+     * Test the specified hash function in parallel, according to the mode.
+     *
+     * @since 1.0
+     * @param baseInput Directory of files, or file for trees.
+     * @param algorithm Algorithm to be used.
+     * @param provider Library from where the algorithm comes.
+     * @return A SimpleMeter containing the time measurements, or null if the
+     * test failed.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     */
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException {
+
+        SimpleMeter meter = new SimpleMeter();
+
+        meter.phase(PHASE_LOOKUP);
+        ParallelHasher hasher = new ParallelHasher(algorithm, provider, forkJoinPool, leafSize);
+        meter.endPhase();
+
+        try {
+            if (mode == Mode.FILES) {
+                File[] files = list(baseInput);
+                long bytes = 0;
+
+                for (File file : files) {
+                    bytes += file.length();
+                }
+
+                meter.start();
+                meter.phase(PHASE_BULK);
+
+                hasher.hashFiles(files);
+
+                meter.endPhase();
+                meter.stop();
+
+                meter.addBytes(bytes);
+                meter.addOperations(files.length);
+            } else {
+                meter.start();
+                meter.phase(PHASE_BULK);
+
+                hasher.hashTree(baseInput);
+
+                meter.endPhase();
+                meter.stop();
+
+                meter.addBytes(baseInput.length());
+                meter.addOperations(hasher.leaves(baseInput.length()));
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Lists the files to hash: the regular files of a directory, sorted by
+     * name, or the input itself.
+     *
+     * @since 1.0
+     * @param baseInput Directory or file.
+     * @return Files to hash.
+     * @throws FileNotFoundException If the input does not exist.
+     */
+    private static File[] list(File baseInput) throws FileNotFoundException {
+        if (baseInput.isFile()) {
+            return new File[]{baseInput};
+        }
+
+        File[] entries = baseInput.listFiles();
+        if (entries == null) {
+            throw new FileNotFoundException("No such file or directory: " + baseInput);
+        }
+
+        List<File> files = new ArrayList<>();
+        for (File entry : entries) {
+            if (entry.isFile()) {
+                files.add(entry);
+            }
+        }
+
+        File[] sorted = files.toArray(new File[files.size()]);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Access the parallel hashing mode.
+     *
+     * @since 1.0
+     * @return Mode.
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Defines the parallel hashing mode.
+     *
+     * @since 1.0
+     * @param mode Mode.
+     */
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Access the leaf size for trees.
+     *
+     * @since 1.0
+     * @return Leaf size, in bytes.
+     */
+    public int getLeafSize() {
+        return leafSize;
+    }
+
+    /**
+     * Defines the leaf size for trees.
+     *
+     * @since 1.0
+     * @param leafSize Leaf size, in bytes.
+     */
+    public void setLeafSize(int leafSize) {
+        if (leafSize < 1) {
+            throw new IllegalArgumentException("Invalid leaf size: " + leafSize);
+        }
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * Access the number of workers.
+     *
+     * @since 1.0
+     * @return Number of workers.
+     */
+    public int getParallelism() {
+        return forkJoinPool.getParallelism();
+    }
+
+    /**
+     * Defines the number of workers; the previous fork-join pool is shut
+     * down.
+     *
+     * @since 1.0
+     * @param parallelism Number of workers.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        if (parallelism == getParallelism()) {
+            return;
+        }
+
+        forkJoinPool.shutdown();
+        forkJoinPool = new ForkJoinPool(parallelism);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.Libraries;
+import crypto.performance.SyntheticPayload;
+import crypto.performance.TimeTester;
+import crypto.performance.TimeTester.InputMode;
+import crypto.performance.TimeTester.Operation;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.NoSuchPaddingException;
+
+/**
+ * Test and measure how costs grow with the payload size.
+ *
+ * <p>
+ * Synthetic payloads, from 16 bytes to 4 GiB, are processed in bulk from
+ * mapped files, splitting the costs into a fixed overhead per call and a cost
+ * per byte.
+ * </p>
+ *
+ * <p>
+ * Payloads are written into ./data/payloads once and reused; the largest ones
+ * take about 4.3 GiB of disk space.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ *
+ * @see TimeTester#execSizeSweep
+ * @see SyntheticPayload
+ */
+public class PayloadSizeTester {
+
+    /**
+     * Executes the default test: AES on CBC and CFB, SHA-1 and SHA-512.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+        run(4L * 1024 * 1024 * 1024);
+    }
+
+    /**
+     * Executes the default test, up to a maximum payload size: AES on CBC and
+     * CFB, SHA-1 and SHA-512.
+     *
+     * @since 1.0
+     * @param maxSize Largest payload, in bytes.
+     */
+    public static void run(long maxSize) {
+
+        Libraries.registerProviders();
+
+        File payloads = new File("data/payloads");
+        File results = new File("data/results/payload sizes.txt");
+        long[] sizes = SyntheticPayload.sizes(maxSize);
+        int nTests = 10;
+
+        TimeTester blockTester = new BlockCipherTester();
+        TimeTester hashTester = new HashTester();
+
+        //Libraries
+        String[] cipherProviders = new String[]{"BC", "FlexiCore", "SunJCE"};
+        String[] hashProviders = new String[]{"BC", "FlexiCore", "SUN"};
+
+        System.out.println("Evaluating payload sizes...");
+
+        for (TimeTester tester : new TimeTester[]{blockTester, hashTester}) {
+            tester.setInputMode(InputMode.MAPPED);
+            tester.setChunkSize(TimeTester.DEFAULT_CHUNK_SIZE);
+            tester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+        }
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            //AES
+            blockTester.execSizeSweep(nTests, sizes, payloads, out, "AES/CBC/PKCS5Padding",
+                    Operation.ENCRYPTION_DECRYPTION, cipherProviders);
+            //AES CFB
+            blockTester.execSizeSweep(nTests, sizes, payloads, out, "AES/CFB/PKCS5Padding",
+                    Operation.ENCRYPTION_DECRYPTION, cipherProviders);
+            //Hashes
+            hashTester.execSizeSweep(nTests, sizes, payloads, out, "SHA-1",
+                    Operation.ENCRYPTION_DECRYPTION, hashProviders);
+            hashTester.execSizeSweep(nTests, sizes, payloads, out, "SHA-512",
+                    Operation.ENCRYPTION_DECRYPTION, hashProviders);
+
+        } catch (IOException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(PayloadSizeTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+}
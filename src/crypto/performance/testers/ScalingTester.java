@@ -0,0 +1,103 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.Libraries;
+import crypto.performance.TimeTester;
+import crypto.performance.TimeTester.Operation;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.NoSuchPaddingException;
+
+/**
+ * Test and measure how providers scale with the number of threads.
+ *
+ * <p>
+ * Every thread runs its own ciphers and digests, on its own input stream;
+ * results are the aggregate throughput, per thread measurements and the
+ * scaling curve (speedup and efficiency) from 1 thread up to the number of
+ * cores.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ *
+ * @see TimeTester#execScalingTests
+ */
+public class ScalingTester {
+
+    /**
+     * Executes the default test: AES on CBC and CFB, SHA-1, SHA-512 and RSA.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/scaling.txt");
+        int nTests = 5;
+        int[] threadCounts = TimeTester.threadCounts();
+
+        TimeTester blockTester = new BlockCipherTester();
+        TimeTester hashTester = new HashTester();
+        TimeTester asymTester = new AsymmetricCipherTester();
+
+        System.out.println("Evaluating scalability...");
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            //AES
+            blockTester.execScalingTests(nTests, threadCounts, file, out, "AES/CBC/PKCS5Padding",
+                    Operation.ENCRYPTION_DECRYPTION, 0, new String[]{"BC", "FlexiCore", "SunJCE"});
+            //AES CFB
+            blockTester.execScalingTests(nTests, threadCounts, file, out, "AES/CFB/PKCS5Padding",
+                    Operation.ENCRYPTION_DECRYPTION, 0, new String[]{"BC", "FlexiCore", "SunJCE"});
+            //Hashes
+            hashTester.execScalingTests(nTests, threadCounts, file, out, "SHA-1",
+                    Operation.ENCRYPTION_DECRYPTION, 0, new String[]{"BC", "FlexiCore", "SUN"});
+            hashTester.execScalingTests(nTests, threadCounts, file, out, "SHA-512",
+                    Operation.ENCRYPTION_DECRYPTION, 0, new String[]{"BC", "FlexiCore", "SUN"});
+            //RSA - PKCS1Padding, encryption only
+            asymTester.execScalingTests(1, threadCounts, file, out, "RSA/ECB/PKCS1Padding",
+                    Operation.ENCRYPTION, 2048, new String[]{"BC", "FlexiCore", "SunJCE"});
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(ScalingTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+}
@@ -0,0 +1,493 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.KeyPool;
+import crypto.performance.Libraries;
+import crypto.performance.TimeTester;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Signature;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.NoSuchPaddingException;
+import performance.SimpleMeter;
+import performance.TimerSummary;
+
+/**
+ * Test and measure performance for digital signatures: RSA (PKCS#1 v1.5 and
+ * PSS), DSA and ECDSA.
+ *
+ * <p>
+ * Every experiment signs (and/or verifies) a sequence of messages, cut from
+ * the input file, including the hash of each message. Signatures to verify
+ * are computed before measuring. Results are given in operations
+ * (signatures) per second, along with the latency percentiles of each
+ * operation.
+ * </p>
+ *
+ * <p>
+ * Operations map to the tester's methods: encryption tests sign, decryption
+ * tests verify and encryption/decryption tests sign and verify every
+ * message. A key size is required; for ECDSA it selects the curve (256, 384
+ * and 521 bits for P-256, P-384 and P-521). Key pairs are drawn from a
+ * {@link KeyPool}, generated once per algorithm, key size and provider.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class SignatureTester extends TimeTester {
+
+    /**
+     * Message size in bytes.
+     *
+     * @since 1.0
+     */
+    private int messageSize = 1024;
+
+    /**
+     * Number of messages per experiment.
+     *
+     * @since 1.0
+     */
+    private int nMessages = 64;
+
+    /**
+     * Source of key pairs.
+     *
+     * @since 1.0
+     */
+    private KeyPool keyPool = new KeyPool();
+
+    /**
+     * Executes the default test: SHA256withRSA, RSASSA-PSS, SHA256withDSA and
+     * SHA256withECDSA, signing and verifying 1 KiB messages, for several key
+     * sizes and curves.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/signatures.txt");
+        int nTests = 10;
+
+        SignatureTester signatureTester = new SignatureTester();
+
+        System.out.println("Evaluating signatures...");
+
+        signatureTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            for (Operation operation : new Operation[]{Operation.DECRYPTION, Operation.ENCRYPTION}) {
+                //RSA - PKCS#1 v1.5
+                signatureTester.execSignatureSweep(nTests, new int[]{2048, 3072, 4096}, file, out, "SHA256withRSA",
+                        operation, new String[]{"BC", "FlexiCore", "SunRsaSign"});
+                //RSA - PSS
+                signatureTester.execSignatureSweep(nTests, new int[]{2048, 3072, 4096}, file, out, "RSASSA-PSS",
+                        operation, new String[]{"BC", "SunRsaSign"});
+                //DSA
+                signatureTester.execSignatureSweep(nTests, new int[]{2048}, file, out, "SHA256withDSA",
+                        operation, new String[]{"BC", "FlexiCore", "SUN"});
+                //ECDSA - P-256, P-384, P-521
+                signatureTester.execSignatureSweep(nTests, new int[]{256, 384, 521}, file, out, "SHA256withECDSA",
+                        operation, new String[]{"BC", "SunEC"});
+                //ECDSA - FlexiEC has no default parameters for 521 bits
+                signatureTester.execSignatureSweep(nTests, new int[]{256, 384}, file, out, "SHA256withECDSA",
+                        operation, new String[]{"FlexiEC"});
+            }
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(SignatureTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each key size.
+     *
+     * <p>
+     * After the summaries of each provider, the operations per second and the
+     * latency percentiles for each key size are reported.
+     * </p>
+     *
+     * @since 1.0
+     * @param nTests Number of tests to run.
+     * @param keySizes Key sizes, in bits.
+     * @param baseInput Input file, from where messages are cut.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param operation Operation to test: encryption to sign, decryption to
+     * verify.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    public void execSignatureSweep(int nTests, int[] keySizes, File baseInput, PrintStream out,
+            String algorithm, Operation operation, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        for (String provider : providers) {
+            String name = algorithm + "-" + provider + "-" + operationName(operation);
+            TimerSummary[] summaries = new TimerSummary[keySizes.length];
+
+            for (int i = 0; i < keySizes.length; i++) {
+                Experiment experiment = experiment(baseInput, algorithm, operation, keySizes[i], provider);
+
+                summaries[i] = execTests(nTests, baseInput, name + "-" + keySizes[i], experiment);
+                report(summaries[i], out);
+            }
+
+            out.println(label(name) + " signatures");
+            out.println(String.format("%15s\t%12s\t%10s\t%10s\t%10s\t%s",
+                    "Key Size", "ops/s", "p50", "p99", "p99.9", TimeUnit.MICROSECONDS.name() + "/operation"));
+            for (int i = 0; i < keySizes.length; i++) {
+                out.println(String.format("%15d\t%12.2f\t%10.2f\t%10.2f\t%10.2f",
+                        keySizes[i],
+                        summaries[i].getOperationsPerSecond(),
+                        summaries[i].getLatencies().getPercentile(50, TimeUnit.MICROSECONDS),
+                        summaries[i].getLatencies().getPercentile(99, TimeUnit.MICROSECONDS),
+                        summaries[i].getLatencies().getPercentile(99.9, TimeUnit.MICROSECONDS)));
+            }
+            out.println();
+        }
+    }
+
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(baseInput, algorithm, keySize, provider, Operation.ENCRYPTION_DECRYPTION);
+    }
+
+    @Override
+    public SimpleMeter testEncryption(File baseInput, String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(baseInput, algorithm, keySize, provider, Operation.ENCRYPTION);
+    }
+
+    @Override
+    public SimpleMeter testDecryption(File baseInput, String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(baseInput, algorithm, keySize, provider, Operation.DECRYPTION);
+    }
+
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("For signatures a key size needs to be defined.");
+    }
+
+    @Override
+    public SimpleMeter testEncryption(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("For signatures a key size needs to be defined.");
+    }
+
+    @Override
+    public SimpleMeter testDecryption(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        throw new UnsupportedOperationException("For signatures a key size needs to be defined.");
+    }
+
+    /**
+     * Test the specified signature scheme on a sequence of messages.
+     *
+     * <p>
+     * The key pair, message offsets and, for verification only, signatures
+     * are prepared before measuring; the latency of each message is recorded.
+     * </p>
+     *
+     * @since 1.0
+     * @param baseInput Input file, from where messages are cut.
+     * @param algorithm Algorithm to be used.
+     * @param keySize Key size, in bits.
+     * @param provider Library from where the algorithm comes.
+     * @param operation Operation to test: encryption to sign, decryption to
+     * verify.
+     * @return A SimpleMeter containing the time measurements, or null if the
+     * test failed.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    protected SimpleMeter test(File baseInput, String algorithm, int keySize, String provider, Operation operation)
+            throws NoSuchProviderException, NoSuchAlgorithmException, InvalidKeyException,
+            InvalidAlgorithmParameterException {
+
+        SimpleMeter meter = new SimpleMeter();
+
+        meter.phase(PHASE_KEYGEN);
+        KeyPair key = keyPair(algorithm, keySize, provider);
+
+        meter.phase(PHASE_LOOKUP);
+        Signature signer = signature(algorithm, provider);
+        Signature verifier = signature(algorithm, provider);
+        meter.endPhase();
+
+        try {
+            byte[] input = loadInput(baseInput);
+            int[] offsets = SmallMessageTester.messageOffsets(input.length, messageSize, nMessages);
+            byte[][] signatures = null;
+
+            if (operation == Operation.DECRYPTION) {
+                signatures = new byte[nMessages][];
+                signer.initSign(key.getPrivate());
+
+                for (int i = 0; i < nMessages; i++) {
+                    signer.update(input, offsets[i], messageSize);
+                    signatures[i] = signer.sign();
+                }
+            }
+
+            meter.phase(PHASE_INIT);
+            if (operation != Operation.DECRYPTION) {
+                signer.initSign(key.getPrivate());
+            }
+            if (operation != Operation.ENCRYPTION) {
+                verifier.initVerify(key.getPublic());
+            }
+            meter.endPhase();
+
+            meter.start();
+            meter.phase(PHASE_BULK);
+
+            for (int i = 0; i < nMessages; i++) {
+                long start = System.nanoTime();
+
+                switch (operation) {
+                    case ENCRYPTION:
+                        signer.update(input, offsets[i], messageSize);
+                        signer.sign();
+                        break;
+                    case DECRYPTION:
+                        verifier.update(input, offsets[i], messageSize);
+                        verify(verifier, signatures[i]);
+                        break;
+                    default:
+                        signer.update(input, offsets[i], messageSize);
+                        byte[] signature = signer.sign();
+                        verifier.update(input, offsets[i], messageSize);
+                        verify(verifier, signature);
+                }
+
+                meter.recordLatency(System.nanoTime() - start);
+            }
+
+            meter.endPhase();
+            meter.stop();
+
+            meter.addBytes((long) nMessages * messageSize);
+            meter.addOperations(nMessages);
+        } catch (IOException | GeneralSecurityException ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Verifies a signature, failing on invalid ones.
+     *
+     * @since 1.0
+     * @param verifier Signature initialized for verification, with the
+     * message.
+     * @param signature Signature to verify.
+     * @throws GeneralSecurityException If the signature is invalid or can not
+     * be verified.
+     */
+    private static void verify(Signature verifier, byte[] signature) throws GeneralSecurityException {
+        if (!verifier.verify(signature)) {
+            throw new GeneralSecurityException("Invalid signature: " + verifier.getAlgorithm());
+        }
+    }
+
+    /**
+     * Creates a signature object, with its parameters for PSS.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param provider Library from where the algorithm comes.
+     * @return A new signature object.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws java.security.InvalidAlgorithmParameterException
+     */
+    protected static Signature signature(String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, InvalidAlgorithmParameterException {
+
+        Signature signature = Signature.getInstance(algorithm, provider);
+
+        if (algorithm.equals("RSASSA-PSS")) {
+            signature.setParameter(new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+        }
+
+        return signature;
+    }
+
+    /**
+     * Takes a key pair for a signature algorithm from the key pool.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param keySize Key size, in bits.
+     * @param provider Library from where the algorithm comes.
+     * @return A key pair.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     */
+    protected KeyPair keyPair(String algorithm, int keySize, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException {
+        return keyPool.take(keyAlgorithm(algorithm), keySize, provider);
+    }
+
+    /**
+     * Returns the key algorithm for a signature algorithm.
+     *
+     * @since 1.0
+     * @param algorithm Signature algorithm; e.g., SHA256withECDSA.
+     * @return Key algorithm: RSA, DSA or EC.
+     */
+    protected static String keyAlgorithm(String algorithm) {
+        if (algorithm.equals("RSASSA-PSS")) {
+            return "RSA";
+        }
+
+        String key = algorithm.substring(algorithm.indexOf("with") + 4).split("/")[0];
+        return key.equals("ECDSA") ? "EC" : key;
+    }
+
+    /**
+     * Returns the name of an operation, for signatures.
+     *
+     * @since 1.0
+     * @param operation Operation.
+     * @return sign, verify or sign-verify.
+     */
+    private static String operationName(Operation operation) {
+        switch (operation) {
+            case ENCRYPTION:
+                return "sign";
+            case DECRYPTION:
+                return "verify";
+            default:
+                return "sign-verify";
+        }
+    }
+
+    /**
+     * Access the source of key pairs.
+     *
+     * @since 1.0
+     * @return Key pool.
+     */
+    public KeyPool getKeyPool() {
+        return keyPool;
+    }
+
+    /**
+     * Defines the source of key pairs.
+     *
+     * @since 1.0
+     * @param keyPool Key pool.
+     */
+    public void setKeyPool(KeyPool keyPool) {
+        this.keyPool = keyPool;
+    }
+
+    /**
+     * Access the message size.
+     *
+     * @since 1.0
+     * @return Message size in bytes.
+     */
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    /**
+     * Defines the message size.
+     *
+     * @since 1.0
+     * @param messageSize Message size in bytes.
+     */
+    public void setMessageSize(int messageSize) {
+        this.messageSize = messageSize;
+    }
+
+    /**
+     * Access the number of messages per experiment.
+     *
+     * @since 1.0
+     * @return Number of messages.
+     */
+    public int getNMessages() {
+        return nMessages;
+    }
+
+    /**
+     * Defines the number of messages per experiment.
+     *
+     * @since 1.0
+     * @param nMessages Number of messages.
+     */
+    public void setNMessages(int nMessages) {
+        this.nMessages = nMessages;
+    }
+}
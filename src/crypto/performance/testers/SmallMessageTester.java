@@ -0,0 +1,572 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package crypto.performance.testers;
+
+import crypto.performance.Algorithms;
+import crypto.performance.Libraries;
+import crypto.performance.TimeTester;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import performance.SimpleMeter;
+import performance.TimerSummary;
+
+/**
+ * Test and measure performance for symmetric ciphers on small messages.
+ *
+ * <p>
+ * Every experiment encrypts (and/or decrypts) a sequence of messages, cut from
+ * the input file, with a single key: each message is an init, with a fresh
+ * IV, followed by a doFinal. IVs are generated before measuring. Results are
+ * given in operations (messages) per second, along with the latency
+ * percentiles of each operation.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.1
+ */
+public class SmallMessageTester extends TimeTester {
+
+    /**
+     * Message size in bytes.
+     *
+     * @since 1.0
+     */
+    private int messageSize = 64;
+
+    /**
+     * Number of messages per experiment.
+     *
+     * @since 1.0
+     */
+    private int nMessages = 4096;
+
+    /**
+     * Executes the default test: AES on CBC, CTR and GCM, and ChaCha20-Poly1305,
+     * for messages from 64 bytes to 4 KiB. ChaCha20-Poly1305 is skipped when
+     * the running JDK does not offer it.
+     *
+     * @since 1.0
+     */
+    public static void run() {
+
+        Libraries.registerProviders();
+
+        File file = new File("data/colors.jpg");
+        File results = new File("data/results/small messages.txt");
+        int nTests = 10;
+        int[] messageSizes = messageSizes();
+
+        SmallMessageTester messageTester = new SmallMessageTester();
+
+        System.out.println("Evaluating small messages...");
+
+        messageTester.setSamplesDirectory(new File("data/results/samples", results.getName().replace(".txt", "")));
+
+        try (PrintStream out = new PrintStream(results)) {
+
+            //AES
+            messageTester.execMessageSweep(nTests, messageSizes, file, out, "AES/CBC/PKCS5Padding",
+                    Operation.ENCRYPTION, new String[]{"BC", "FlexiCore", "SunJCE"});
+            //AES CTR
+            messageTester.execMessageSweep(nTests, messageSizes, file, out, "AES/CTR/NoPadding",
+                    Operation.ENCRYPTION, new String[]{"BC", "FlexiCore", "SunJCE"});
+            //AES GCM
+            messageTester.execMessageSweep(nTests, messageSizes, file, out, "AES/GCM/NoPadding",
+                    Operation.ENCRYPTION, new String[]{"BC", "SunJCE"});
+            //ChaCha20-Poly1305, JDK 11 onwards
+            messageTester.execMessageSweep(nTests, messageSizes, file, out, "ChaCha20-Poly1305",
+                    Operation.ENCRYPTION, Algorithms.providers("Cipher", "ChaCha20-Poly1305", "SunJCE"));
+
+        } catch (FileNotFoundException | NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException | InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            Logger.getLogger(SmallMessageTester.class.getName()).log(Level.SEVERE, null, ex);
+        }
+
+        System.out.println("Done.");
+    }
+
+    /**
+     * Returns the default message sizes.
+     *
+     * @since 1.0
+     * @return Message sizes from 64 bytes to 4 KiB, growing by four.
+     */
+    public static int[] messageSizes() {
+        return new int[]{64, 256, 1024, 4096};
+    }
+
+    /**
+     * Executes n tests on the specified algorithm, from each provider, for
+     * each message size.
+     *
+     * <p>
+     * After the summaries of each provider, the operations per second and the
+     * latency percentiles for each message size are reported. The message
+     * size in use before the sweep is restored at the end.
+     * </p>
+     *
+     * @since 1.0
+     * @param nTests Number of tests to run.
+     * @param messageSizes Message sizes, in bytes.
+     * @param baseInput Input file, from where messages are cut.
+     * @param out Results destination.
+     * @param algorithm Algorithm to be used.
+     * @param operation Operation to test.
+     * @param providers Libraries from where the algorithms comes.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     *
+     * @see #messageSizes()
+     */
+    public void execMessageSweep(int nTests, int[] messageSizes, File baseInput, PrintStream out,
+            String algorithm, Operation operation, String[] providers)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        int previousMessageSize = getMessageSize();
+
+        try {
+            for (String provider : providers) {
+                String name = algorithm + "-" + provider;
+                Experiment experiment = experiment(baseInput, algorithm, operation, 0, provider);
+                TimerSummary[] summaries = new TimerSummary[messageSizes.length];
+
+                for (int i = 0; i < messageSizes.length; i++) {
+                    setMessageSize(messageSizes[i]);
+
+                    summaries[i] = execTests(nTests, baseInput, name + "-" + messageSizes[i] + "B", experiment);
+                    report(summaries[i], out);
+                }
+
+                out.println(label(name) + " messages");
+                out.println(String.format("%15s\t%12s\t%10s\t%10s\t%10s\t%s",
+                        "Message Size", "ops/s", "p50", "p99", "p99.9", TimeUnit.MICROSECONDS.name() + "/operation"));
+                for (int i = 0; i < messageSizes.length; i++) {
+                    out.println(String.format("%15d\t%12.2f\t%10.2f\t%10.2f\t%10.2f",
+                            messageSizes[i],
+                            summaries[i].getOperationsPerSecond(),
+                            summaries[i].getLatencies().getPercentile(50, TimeUnit.MICROSECONDS),
+                            summaries[i].getLatencies().getPercentile(99, TimeUnit.MICROSECONDS),
+                            summaries[i].getLatencies().getPercentile(99.9, TimeUnit.MICROSECONDS)));
+                }
+                out.println();
+            }
+        } finally {
+            setMessageSize(previousMessageSize);
+        }
+    }
+
+    @Override
+    public SimpleMeter test(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(baseInput, algorithm, provider, Operation.ENCRYPTION_DECRYPTION);
+    }
+
+    @Override
+    public SimpleMeter testEncryption(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(baseInput, algorithm, provider, Operation.ENCRYPTION);
+    }
+
+    @Override
+    public SimpleMeter testDecryption(File baseInput, String algorithm, String provider)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+        return test(baseInput, algorithm, provider, Operation.DECRYPTION);
+    }
+
+    /**
+     * Test the specified scheme on small messages.
+     *
+     * <p>
+     * Keys, IVs, message offsets and, for decryption only, cipher texts are
+     * prepared before measuring; the latency of each message is recorded.
+     * </p>
+     *
+     * @since 1.0
+     * @param baseInput Input file, from where messages are cut.
+     * @param algorithm Algorithm to be used.
+     * @param provider Library from where the algorithm comes.
+     * @param operation Operation to test.
+     * @return A SimpleMeter containing the time measurements, or null if the
+     * test failed.
+     *
+     * @throws java.security.NoSuchProviderException
+     * @throws java.security.NoSuchAlgorithmException
+     * @throws javax.crypto.NoSuchPaddingException
+     * @throws java.security.InvalidAlgorithmParameterException
+     * @throws java.security.InvalidKeyException
+     */
+    protected SimpleMeter test(File baseInput, String algorithm, String provider, Operation operation)
+            throws NoSuchProviderException, NoSuchAlgorithmException, NoSuchPaddingException,
+            InvalidKeyException, InvalidAlgorithmParameterException {
+
+        SimpleMeter meter = new SimpleMeter();
+        SecureRandom randGenerator = new SecureRandom();
+
+        meter.phase(PHASE_LOOKUP);
+        KeyGenerator generator = KeyGenerator.getInstance(keyAlgorithm(algorithm), provider);
+        meter.phase(PHASE_KEYGEN);
+        generator.init(randGenerator);
+        SecretKey key = generator.generateKey();
+
+        meter.phase(PHASE_LOOKUP);
+        Cipher cipherEncryption = Cipher.getInstance(algorithm, provider);
+        Cipher cipherDecription = Cipher.getInstance(algorithm, provider);
+        meter.endPhase();
+
+        AlgorithmParameterSpec[] parameters = messageParameters(algorithm, cipherEncryption, randGenerator);
+
+        try {
+            byte[] input = loadInput(baseInput);
+            int[] offsets = messageOffsets(input.length, messageSize, nMessages);
+
+            byte[] cipherText = new byte[messageSize + 64];
+            byte[] plainText = new byte[messageSize + 64];
+            byte[][] cipherTexts = null;
+
+            if (operation == Operation.DECRYPTION) {
+                cipherTexts = new byte[nMessages][];
+
+                for (int i = 0; i < nMessages; i++) {
+                    initMessage(cipherEncryption, Cipher.ENCRYPT_MODE, key, parameters[i]);
+                    cipherTexts[i] = cipherEncryption.doFinal(input, offsets[i], messageSize);
+                }
+            }
+
+            meter.start();
+            meter.phase(PHASE_BULK);
+
+            for (int i = 0; i < nMessages; i++) {
+                long start = System.nanoTime();
+
+                switch (operation) {
+                    case ENCRYPTION:
+                        initMessage(cipherEncryption, Cipher.ENCRYPT_MODE, key, parameters[i]);
+                        cipherEncryption.doFinal(input, offsets[i], messageSize, cipherText, 0);
+                        break;
+                    case DECRYPTION:
+                        initMessage(cipherDecription, Cipher.DECRYPT_MODE, key, parameters[i]);
+                        cipherDecription.doFinal(cipherTexts[i], 0, cipherTexts[i].length, plainText, 0);
+                        break;
+                    default:
+                        initMessage(cipherEncryption, Cipher.ENCRYPT_MODE, key, parameters[i]);
+                        int length = cipherEncryption.doFinal(input, offsets[i], messageSize, cipherText, 0);
+                        initMessage(cipherDecription, Cipher.DECRYPT_MODE, key, parameters[i]);
+                        cipherDecription.doFinal(cipherText, 0, length, plainText, 0);
+                }
+
+                meter.recordLatency(System.nanoTime() - start);
+            }
+
+            meter.endPhase();
+            meter.stop();
+
+            meter.addBytes((long) nMessages * messageSize);
+            meter.addOperations(nMessages);
+        } catch (IOException | GeneralSecurityException ex) {
+            ex.printStackTrace();
+            meter = null;
+        }
+
+        return meter;
+    }
+
+    /**
+     * Generates the parameters for the messages of one experiment, before
+     * measuring.
+     *
+     * @since 1.1
+     * @param algorithm Algorithm to be used.
+     * @param cipher Cipher instance for the algorithm.
+     * @param randGenerator Source for the IVs.
+     * @return Parameters for each message; null entries if the algorithm takes
+     * no IV.
+     */
+    protected AlgorithmParameterSpec[] messageParameters(String algorithm, Cipher cipher,
+            SecureRandom randGenerator) {
+        return parameterSpecs(algorithm, cipher, nMessages, randGenerator);
+    }
+
+    /**
+     * Initializes a cipher for one message, as part of the measured
+     * operation.
+     *
+     * @since 1.1
+     * @param cipher Cipher to initialize.
+     * @param mode Cipher mode.
+     * @param key Key to use.
+     * @param parameters Parameters, or null for none.
+     * @throws InvalidKeyException
+     * @throws InvalidAlgorithmParameterException
+     */
+    protected void initMessage(Cipher cipher, int mode, SecretKey key, AlgorithmParameterSpec parameters)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        init(cipher, mode, key, parameters);
+    }
+
+    /**
+     * Initializes a cipher, with parameters if there are any.
+     *
+     * @since 1.0
+     * @param cipher Cipher to initialize.
+     * @param mode Cipher mode.
+     * @param key Key to use.
+     * @param parameters Parameters, or null for none.
+     * @throws InvalidKeyException
+     * @throws InvalidAlgorithmParameterException
+     */
+    protected static void init(Cipher cipher, int mode, SecretKey key, AlgorithmParameterSpec parameters)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+        if (parameters == null) {
+            cipher.init(mode, key);
+        } else {
+            cipher.init(mode, key, parameters);
+        }
+    }
+
+    /**
+     * Computes where each message starts on the input, one after the other,
+     * wrapping around at its end.
+     *
+     * @since 1.0
+     * @param inputLength Input length.
+     * @param messageSize Message size.
+     * @param nMessages Number of messages.
+     * @return Offsets of the messages.
+     * @throws IOException If the input is smaller than one message.
+     */
+    protected static int[] messageOffsets(int inputLength, int messageSize, int nMessages) throws IOException {
+        if (inputLength < messageSize) {
+            throw new IOException("Input smaller than a message: " + inputLength + " < " + messageSize);
+        }
+
+        int[] offsets = new int[nMessages];
+        long positions = inputLength - messageSize + 1L;
+
+        for (int i = 0; i < nMessages; i++) {
+            offsets[i] = (int) (((long) i * messageSize) % positions);
+        }
+
+        return offsets;
+    }
+
+    /**
+     * Returns the algorithm name for key generation: the cipher name, without
+     * mode, padding or authentication.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @return Key algorithm.
+     */
+    protected static String keyAlgorithm(String algorithm) {
+        String cipher = algorithm.split("/")[0];
+        return cipher.startsWith("ChaCha20") ? "ChaCha20" : cipher;
+    }
+
+    /**
+     * Returns the mode of operation for an algorithm.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @return Mode, in upper case, or an empty string if none is given.
+     */
+    protected static String mode(String algorithm) {
+        String[] parts = algorithm.split("/");
+        return parts.length > 1 ? parts[1].toUpperCase() : "";
+    }
+
+    /**
+     * Returns the IV length for an algorithm.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param cipher Cipher instance for the algorithm.
+     * @return IV length in bytes; zero for no IV (ECB).
+     */
+    protected static int ivLength(String algorithm, Cipher cipher) {
+        switch (mode(algorithm)) {
+            case "ECB":
+                return 0;
+            case "GCM":
+            case "CCM":
+                return 12;
+            default:
+                return algorithm.startsWith("ChaCha20") ? 12 : cipher.getBlockSize();
+        }
+    }
+
+    /**
+     * Returns the parameters for an algorithm, given an IV.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param iv Initialization vector.
+     * @param tagLength Authentication tag length in bits, for GCM, CCM and
+     * EAX.
+     * @return Parameters for the algorithm.
+     */
+    protected static AlgorithmParameterSpec parameterSpec(String algorithm, byte[] iv, int tagLength) {
+        switch (mode(algorithm)) {
+            case "GCM":
+            case "CCM":
+            case "EAX":
+                return new GCMParameterSpec(tagLength, iv);
+            default:
+                return new IvParameterSpec(iv);
+        }
+    }
+
+    /**
+     * Verifies if an algorithm is an authenticated encryption scheme.
+     *
+     * @since 1.1
+     * @param algorithm Algorithm to be used.
+     * @return true for GCM, CCM and EAX modes, and for ChaCha20-Poly1305.
+     */
+    protected static boolean isAuthenticated(String algorithm) {
+        switch (mode(algorithm)) {
+            case "GCM":
+            case "CCM":
+            case "EAX":
+                return true;
+            default:
+                return algorithm.startsWith("ChaCha20-Poly1305");
+        }
+    }
+
+    /**
+     * Generates the parameters, with fresh random IVs, for a sequence of
+     * messages.
+     *
+     * @since 1.0
+     * @param algorithm Algorithm to be used.
+     * @param cipher Cipher instance for the algorithm.
+     * @param n Number of messages.
+     * @param randGenerator Source for the IVs.
+     * @return Parameters for each message; null entries if the algorithm takes
+     * no IV.
+     */
+    protected static AlgorithmParameterSpec[] parameterSpecs(String algorithm, Cipher cipher, int n,
+            SecureRandom randGenerator) {
+        return parameterSpecs(algorithm, cipher, n, randGenerator, 128);
+    }
+
+    /**
+     * Generates the parameters, with fresh random IVs and a given tag length,
+     * for a sequence of messages.
+     *
+     * @since 1.1
+     * @param algorithm Algorithm to be used.
+     * @param cipher Cipher instance for the algorithm.
+     * @param n Number of messages.
+     * @param randGenerator Source for the IVs.
+     * @param tagLength Authentication tag length in bits, for GCM, CCM and
+     * EAX.
+     * @return Parameters for each message; null entries if the algorithm takes
+     * no IV.
+     */
+    protected static AlgorithmParameterSpec[] parameterSpecs(String algorithm, Cipher cipher, int n,
+            SecureRandom randGenerator, int tagLength) {
+
+        AlgorithmParameterSpec[] parameters = new AlgorithmParameterSpec[n];
+        int ivLength = ivLength(algorithm, cipher);
+
+        if (ivLength > 0) {
+            for (int i = 0; i < n; i++) {
+                byte[] iv = new byte[ivLength];
+                randGenerator.nextBytes(iv);
+                parameters[i] = parameterSpec(algorithm, iv, tagLength);
+            }
+        }
+
+        return parameters;
+    }
+
+    /**
+     * Access the message size.
+     *
+     * @since 1.0
+     * @return Message size in bytes.
+     */
+    public int getMessageSize() {
+        return messageSize;
+    }
+
+    /**
+     * Defines the message size.
+     *
+     * @since 1.0
+     * @param messageSize Message size in bytes.
+     */
+    public void setMessageSize(int messageSize) {
+        this.messageSize = messageSize;
+    }
+
+    /**
+     * Access the number of messages per experiment.
+     *
+     * @since 1.0
+     * @return Number of messages.
+     */
+    public int getNMessages() {
+        return nMessages;
+    }
+
+    /**
+     * Defines the number of messages per experiment.
+     *
+     * @since 1.0
+     * @param nMessages Number of messages.
+     */
+    public void setNMessages(int nMessages) {
+        this.nMessages = nMessages;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package performance;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Class to perform heap allocation measurements.
+ *
+ * <p>
+ * This class should be used to perform measurements between two points on a
+ * single thread flux.
+ * </p>
+ *
+ * <h3>Measures:</h3>
+ * <ul>
+ * <li>Allocated bytes: heap memory allocated by the current thread, what
+ * includes objects that become garbage right away;</li>
+ * </ul>
+ *
+ * <p>
+ * Relies on the per thread allocation counters of HotSpot's thread management
+ * bean; where they are not available, all measurements are zero.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class AllocationMeter {
+
+    /**
+     * Management bean to consult, or null if allocation counters are not
+     * supported.
+     *
+     * @since 1.0
+     */
+    private static final com.sun.management.ThreadMXBean MANAGEMENT = management();
+
+    private long start;
+    private long end;
+
+    /**
+     * Access the management bean, enabling allocation measurements.
+     *
+     * @since 1.0
+     * @return The bean, or null if allocation counters are not supported.
+     */
+    private static com.sun.management.ThreadMXBean management() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean management = (com.sun.management.ThreadMXBean) bean;
+
+        try {
+            if (!management.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            if (!management.isThreadAllocatedMemoryEnabled()) {
+                management.setThreadAllocatedMemoryEnabled(true);
+            }
+        } catch (UnsupportedOperationException | SecurityException ex) {
+            return null;
+        }
+
+        return management;
+    }
+
+    /**
+     * Returns if allocation measurements are supported.
+     *
+     * @since 1.0
+     * @return True if allocations are measured, false if all measurements are
+     * zero.
+     */
+    public static boolean isSupported() {
+        return MANAGEMENT != null;
+    }
+
+    /**
+     * Access the bytes allocated by the current thread since it started.
+     *
+     * @since 1.0
+     * @return Allocated bytes, or zero if not supported.
+     */
+    private static long allocatedBytes() {
+        return MANAGEMENT != null ? MANAGEMENT.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0L;
+    }
+
+    /**
+     * Start measuring allocations.
+     *
+     * @since 1.0
+     */
+    public void start() {
+        start = allocatedBytes();
+    }
+
+    /**
+     * Stop measuring allocations.
+     *
+     * @since 1.0
+     */
+    public void stop() {
+        end = allocatedBytes();
+    }
+
+    /**
+     * Access allocated bytes, from when the meter was started to when it was
+     * finalized.
+     *
+     * @since 1.0
+     * @return Allocated bytes.
+     */
+    public long getAllocatedBytes() {
+        return end - start;
+    }
+
+    /**
+     * Access allocated bytes, from when the meter was started until now.
+     *
+     * @since 1.0
+     * @return Allocated bytes.
+     */
+    public long getAllocatedBytesNow() {
+        return allocatedBytes() - start;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(getAllocatedBytes());
+    }
+}
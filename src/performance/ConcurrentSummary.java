@@ -0,0 +1,280 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package performance;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A summary for measurements taken by several threads at once.
+ *
+ * <p>
+ * Keeps one summary per thread, along with the clock time elapsed from when
+ * all threads were released to when the last one finished, and the total
+ * amount of bytes processed, what gives the aggregate throughput.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.1
+ *
+ * @see TimerSummary
+ */
+public class ConcurrentSummary {
+
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    private final List<TimerSummary> threadSummaries = new ArrayList<>();
+
+    private long clockTime;
+    private long bytes;
+
+    /**
+     * Optional name for this summary.
+     *
+     * @since 1.0
+     */
+    private String name;
+
+    public ConcurrentSummary() {
+    }
+
+    /**
+     * constructor for a named summary.
+     *
+     * @since 1.0
+     * @param summaryName Optional name for this summary.
+     */
+    public ConcurrentSummary(String summaryName) {
+        setName(summaryName);
+    }
+
+    /**
+     * Adds the summary of one thread.
+     *
+     * @since 1.0
+     * @param summary Measurements taken by the thread.
+     * @param bytes Bytes processed by the thread.
+     */
+    public synchronized void addThreadSummary(TimerSummary summary, long bytes) {
+        threadSummaries.add(summary);
+        this.bytes += bytes;
+    }
+
+    /**
+     * Returns the summaries of all threads.
+     *
+     * @since 1.0
+     * @return Per thread summaries.
+     */
+    public synchronized List<TimerSummary> getThreadSummaries() {
+        return Collections.unmodifiableList(new ArrayList<>(threadSummaries));
+    }
+
+    /**
+     * Returns the number of threads.
+     *
+     * @since 1.0
+     * @return Number of threads.
+     */
+    public synchronized int getNThreads() {
+        return threadSummaries.size();
+    }
+
+    /**
+     * Returns the clock time for all threads, from when they were released to
+     * when the last one finished.
+     *
+     * @since 1.0
+     * @return Clock time in nanoseconds.
+     */
+    public long getClockTime() {
+        return clockTime;
+    }
+
+    /**
+     * Defines the clock time for all threads.
+     *
+     * @since 1.0
+     * @param clockTime Clock time in nanoseconds.
+     */
+    public void setClockTime(long clockTime) {
+        this.clockTime = clockTime;
+    }
+
+    /**
+     * Returns the bytes processed by all threads.
+     *
+     * @since 1.0
+     * @return Total bytes processed.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the aggregate throughput.
+     *
+     * @since 1.0
+     * @return Megabytes (2^20 bytes) processed by all threads per second of
+     * clock time.
+     */
+    public double getThroughput() {
+        return clockTime == 0 ? 0 : (getBytes() / MEGABYTE) / (clockTime / 1e9);
+    }
+
+    /**
+     * Returns the operations executed by all threads.
+     *
+     * @since 1.1
+     * @return Total operations executed.
+     */
+    public synchronized long getOperations() {
+        long operations = 0;
+        for (TimerSummary summary : threadSummaries) {
+            operations += summary.getOperations();
+        }
+        return operations;
+    }
+
+    /**
+     * Returns the aggregate operation rate.
+     *
+     * @since 1.1
+     * @return Operations executed by all threads per second of clock time.
+     */
+    public double getOperationsPerSecond() {
+        return clockTime == 0 ? 0 : getOperations() / (clockTime / 1e9);
+    }
+
+    /**
+     * Returns the distribution of the individual operations' latencies, on
+     * all threads.
+     *
+     * @since 1.1
+     * @return Merged latency histogram; empty if the threads did not record
+     * latencies.
+     */
+    public synchronized Histogram getLatencies() {
+        Histogram latencies = new Histogram();
+        for (TimerSummary summary : threadSummaries) {
+            latencies.add(summary.getLatencies());
+        }
+        return latencies;
+    }
+
+    /**
+     * Access summary's name.
+     *
+     * @since 1.0
+     * @return Summary's name, if it has one or null, otherwise.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Attributes a new name for this summary.
+     *
+     * @since 1.0
+     * @param name Summary's new name.
+     */
+    public final void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Print the summary into the specified output.
+     *
+     * <p>
+     * The aggregate measurements are followed by one line per thread.
+     * </p>
+     *
+     * @since 1.0
+     * @param output Desired destination.
+     */
+    public void print(PrintStream output) {
+
+        if (getName() != null) {
+            output.println(getName());
+        }
+
+        output.println(String.format("%15s\t%10s\t%15s\t%10s", "Threads", "Clock Time", "Bytes", "MB/s"));
+        output.println(String.format("%15d\t%10.2f\t%15d\t%10.2f",
+                getNThreads(),
+                ((double) getClockTime()) / TimeUnit.MILLISECONDS.toNanos(1),
+                getBytes(),
+                getThroughput()
+        ));
+        output.println();
+
+        List<TimerSummary> summaries = getThreadSummaries();
+        if (summaries.isEmpty()) {
+            return;
+        }
+
+        output.println(String.format("%8s\t", "Thread") + summaries.get(0).toStringHeader(TimeUnit.MILLISECONDS));
+        for (int i = 0; i < summaries.size(); i++) {
+            output.print(String.format("%8d\t", i) + summaries.get(i).toString(TimeUnit.MILLISECONDS, 2));
+        }
+    }
+
+    /**
+     * Print the scaling curve for a sequence of summaries.
+     *
+     * <p>
+     * One line per summary: number of threads, aggregate throughput, speedup
+     * and efficiency, both relative to the first summary.
+     * </p>
+     *
+     * @since 1.0
+     * @param summaries Summaries, usually for an increasing number of threads.
+     * @param output Desired destination.
+     */
+    public static void printScaling(List<ConcurrentSummary> summaries, PrintStream output) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+
+        ConcurrentSummary base = summaries.get(0);
+
+        output.println(String.format("%15s\t%10s\t%10s\t%10s", "Threads", "MB/s", "Speedup", "Efficiency"));
+        for (ConcurrentSummary summary : summaries) {
+            double speedup = base.getThroughput() == 0 ? 0 : summary.getThroughput() / base.getThroughput();
+            double efficiency = speedup * base.getNThreads() / Math.max(summary.getNThreads(), 1);
+
+            output.println(String.format("%15d\t%10.2f\t%10.2f\t%10.2f",
+                    summary.getNThreads(),
+                    summary.getThroughput(),
+                    speedup,
+                    efficiency
+            ));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package performance;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Class to perform garbage collection measurements.
+ *
+ * <p>
+ * Collections are counted for the whole virtual machine, not only for the
+ * measuring thread: any collection happening between start and stop is
+ * accounted, as it also pauses, or competes with, the measured code.
+ * </p>
+ *
+ * <h3>Measures:</h3>
+ * <ul>
+ * <li>Collection count: number of collections, from all collectors;</li>
+ * <li>Collection time: accumulated collection time, from all collectors, as
+ * reported by them (millisecond precision).</li>
+ * </ul>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class GcMeter {
+
+    /**
+     * Management beans to consult.
+     *
+     * @since 1.0
+     */
+    private static final List<GarbageCollectorMXBean> COLLECTORS = ManagementFactory.getGarbageCollectorMXBeans();
+
+    private long startCount;
+    private long endCount;
+    private long startTime;
+    private long endTime;
+
+    /**
+     * Access the number of collections since the virtual machine started.
+     *
+     * @since 1.0
+     * @return Collection count, from all collectors.
+     */
+    private static long collectionCount() {
+        long count = 0;
+
+        for (GarbageCollectorMXBean collector : COLLECTORS) {
+            count += Math.max(collector.getCollectionCount(), 0);
+        }
+
+        return count;
+    }
+
+    /**
+     * Access the collection time since the virtual machine started.
+     *
+     * @since 1.0
+     * @return Collection time in milliseconds, from all collectors.
+     */
+    private static long collectionTime() {
+        long time = 0;
+
+        for (GarbageCollectorMXBean collector : COLLECTORS) {
+            time += Math.max(collector.getCollectionTime(), 0);
+        }
+
+        return time;
+    }
+
+    /**
+     * Start measuring collections.
+     *
+     * @since 1.0
+     */
+    public void start() {
+        startCount = collectionCount();
+        startTime = collectionTime();
+    }
+
+    /**
+     * Stop measuring collections.
+     *
+     * @since 1.0
+     */
+    public void stop() {
+        endCount = collectionCount();
+        endTime = collectionTime();
+    }
+
+    /**
+     * Access the number of collections, from when the meter was started to
+     * when it was finalized.
+     *
+     * @since 1.0
+     * @return Collection count.
+     */
+    public long getCollectionCount() {
+        return endCount - startCount;
+    }
+
+    /**
+     * Access the collection time, from when the meter was started to when it
+     * was finalized.
+     *
+     * @since 1.0
+     * @return Collection time in nanoseconds (millisecond precision).
+     */
+    public long getCollectionTime() {
+        return (endTime - startTime) * 1000000L;
+    }
+
+    @Override
+    public String toString() {
+        return getCollectionCount() + "\t" + getCollectionTime();
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package performance;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed memory histogram for time measurements.
+ *
+ * <p>
+ * Values are stored in logarithmic buckets: every power of two is split in
+ * {@value #SUB_BUCKETS} linear sub-buckets, what keeps the relative error of
+ * any reported value under 1/{@value #SUB_BUCKETS} (less than 2%) for the
+ * whole range of non-negative longs.
+ * </p>
+ *
+ * <p>
+ * Recording is constant time and does not allocate memory; all buckets are
+ * allocated when the histogram is created.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.0
+ */
+public class Histogram {
+
+    /**
+     * Number of linear sub-buckets for each power of two.
+     *
+     * @since 1.0
+     */
+    public static final int SUB_BUCKETS = 64;
+
+    /**
+     * Bits needed to index the sub-buckets.
+     *
+     * @since 1.0
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /**
+     * Number of buckets needed to cover all non-negative longs.
+     *
+     * @since 1.0
+     */
+    private static final int N_BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts;
+    private long nValues;
+    private long min;
+    private long max;
+
+    public Histogram() {
+        counts = new long[N_BUCKETS];
+        reset();
+    }
+
+    /**
+     * Records a value.
+     *
+     * <p>
+     * Negative values are recorded as zero.
+     * </p>
+     *
+     * @since 1.0
+     * @param value Value to record.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        counts[indexOf(value)]++;
+        nValues++;
+
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds all values recorded by another histogram into this one.
+     *
+     * @since 1.0
+     * @param other Histogram to be added.
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < N_BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        nValues += other.nValues;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Removes all recorded values.
+     *
+     * @since 1.0
+     */
+    public final void reset() {
+        Arrays.fill(counts, 0L);
+        nValues = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @since 1.0
+     * @return Number of recorded values.
+     */
+    public long getNValues() {
+        return nValues;
+    }
+
+    /**
+     * Returns the smallest recorded value.
+     *
+     * @since 1.0
+     * @return Smallest recorded value, or zero if the histogram is empty.
+     */
+    public long getMin() {
+        return nValues == 0 ? 0 : min;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @since 1.0
+     * @return Largest recorded value, or zero if the histogram is empty.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     *
+     * <p>
+     * The returned value is the highest value equivalent to the bucket where
+     * the percentile falls, limited by the largest recorded value.
+     * </p>
+     *
+     * @since 1.0
+     * @param percentile Desired percentile, from 0 to 100.
+     * @return Value at the given percentile, or zero if the histogram is empty.
+     */
+    public long getPercentile(double percentile) {
+        if (nValues == 0) {
+            return 0;
+        }
+
+        percentile = Math.min(Math.max(percentile, 0.0), 100.0);
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * nValues));
+        long accumulated = 0;
+
+        for (int i = 0; i < N_BUCKETS; i++) {
+            accumulated += counts[i];
+            if (accumulated >= target) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     *
+     * @since 1.0
+     * @param percentile Desired percentile, from 0 to 100.
+     * @param unit Desired unit, considering recorded values as nanoseconds.
+     * @return Value at the given percentile, or zero if the histogram is empty.
+     */
+    public double getPercentile(double percentile, TimeUnit unit) {
+        return toUnit(getPercentile(percentile), unit);
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @since 1.0
+     * @param unit Desired unit, considering recorded values as nanoseconds.
+     * @return Largest recorded value, or zero if the histogram is empty.
+     */
+    public double getMax(TimeUnit unit) {
+        return toUnit(getMax(), unit);
+    }
+
+    /**
+     * Converts a value in nanoseconds to the desired unit, keeping fractions.
+     *
+     * @since 1.0
+     * @param nanoseconds Value to convert.
+     * @param unit Desired unit.
+     * @return Converted value.
+     */
+    private static double toUnit(long nanoseconds, TimeUnit unit) {
+        return ((double) nanoseconds) / unit.toNanos(1);
+    }
+
+    /**
+     * Returns the bucket index for a non-negative value.
+     *
+     * @since 1.0
+     * @param value Non-negative value.
+     * @return Bucket index.
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the highest value that would be recorded into a bucket.
+     *
+     * @since 1.0
+     * @param index Bucket index.
+     * @return Highest value for the bucket.
+     */
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        long next = (subBucket + 1) << shift;
+
+        return next < 0 ? Long.MAX_VALUE : next - 1;
+    }
+}
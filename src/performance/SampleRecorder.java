@@ -0,0 +1,288 @@
+/*
+ * This code was written for an assignment for concept demonstration purposes:
+ *  caution required
+ *
+ * The MIT License
+ *
+ * Copyright 2014 Victor de Lima Soares.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package performance;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Recorder for the raw measurements of every experiment.
+ *
+ * <p>
+ * Measurements are kept in growable primitive columns (clock, CPU, user and
+ * system times, in nanoseconds, bytes processed, bytes allocated and garbage
+ * collections overlapping the sample), avoiding boxing, so they can be
+ * exported for offline analysis.
+ * </p>
+ *
+ * @author Victor de Lima Soares
+ * @version 1.1
+ *
+ * @see TimerSummary
+ */
+public class SampleRecorder {
+
+    /**
+     * Initial capacity for the columns.
+     *
+     * @since 1.0
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int nSamples;
+
+    private long[] clockTimes;
+    private long[] cpuTimes;
+    private long[] userTimes;
+    private long[] systemTimes;
+    private long[] bytes;
+    private long[] allocatedBytes;
+    private long[] gcCounts;
+    private long[] gcTimes;
+
+    public SampleRecorder() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor for a recorder with a given initial capacity.
+     *
+     * @since 1.0
+     * @param capacity Expected number of samples.
+     */
+    public SampleRecorder(int capacity) {
+        capacity = Math.max(capacity, 1);
+        clockTimes = new long[capacity];
+        cpuTimes = new long[capacity];
+        userTimes = new long[capacity];
+        systemTimes = new long[capacity];
+        bytes = new long[capacity];
+        allocatedBytes = new long[capacity];
+        gcCounts = new long[capacity];
+        gcTimes = new long[capacity];
+    }
+
+    /**
+     * Records a SimpleMeter's measurements.
+     *
+     * @since 1.0
+     * @param meter Meter to record.
+     * @param nBytes Bytes processed during the measurements.
+     */
+    public void add(SimpleMeter meter, long nBytes) {
+        ensureCapacity(nSamples + 1);
+
+        clockTimes[nSamples] = meter.getClockTime();
+        cpuTimes[nSamples] = meter.getCpuTime();
+        userTimes[nSamples] = meter.getUserTime();
+        systemTimes[nSamples] = meter.getSystemTime();
+        bytes[nSamples] = nBytes;
+        allocatedBytes[nSamples] = meter.getAllocatedBytes();
+        gcCounts[nSamples] = meter.getGcCount();
+        gcTimes[nSamples] = meter.getGcTime();
+
+        nSamples++;
+    }
+
+    /**
+     * Grows all columns, when needed, to hold the given number of samples.
+     *
+     * @since 1.0
+     * @param capacity Number of samples to hold.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > clockTimes.length) {
+            int newCapacity = Math.max(capacity, clockTimes.length * 2);
+            clockTimes = Arrays.copyOf(clockTimes, newCapacity);
+            cpuTimes = Arrays.copyOf(cpuTimes, newCapacity);
+            userTimes = Arrays.copyOf(userTimes, newCapacity);
+            systemTimes = Arrays.copyOf(systemTimes, newCapacity);
+            bytes = Arrays.copyOf(bytes, newCapacity);
+            allocatedBytes = Arrays.copyOf(allocatedBytes, newCapacity);
+            gcCounts = Arrays.copyOf(gcCounts, newCapacity);
+            gcTimes = Arrays.copyOf(gcTimes, newCapacity);
+        }
+    }
+
+    /**
+     * Returns the number of recorded samples.
+     *
+     * @since 1.0
+     * @return Number of samples.
+     */
+    public int getNSamples() {
+        return nSamples;
+    }
+
+    /**
+     * Returns the clock time of a sample.
+     *
+     * @since 1.0
+     * @param index Sample index.
+     * @return Clock time in nanoseconds.
+     */
+    public long getClockTime(int index) {
+        checkIndex(index);
+        return clockTimes[index];
+    }
+
+    /**
+     * Returns the CPU time of a sample.
+     *
+     * @since 1.0
+     * @param index Sample index.
+     * @return CPU time in nanoseconds.
+     */
+    public long getCpuTime(int index) {
+        checkIndex(index);
+        return cpuTimes[index];
+    }
+
+    /**
+     * Returns the user time of a sample.
+     *
+     * @since 1.0
+     * @param index Sample index.
+     * @return User time in nanoseconds.
+     */
+    public long getUserTime(int index) {
+        checkIndex(index);
+        return userTimes[index];
+    }
+
+    /**
+     * Returns the system time of a sample.
+     *
+     * @since 1.0
+     * @param index Sample index.
+     * @return System time in nanoseconds.
+     */
+    public long getSystemTime(int index) {
+        checkIndex(index);
+        return systemTimes[index];
+    }
+
+    /**
+     * Returns the bytes processed by a sample.
+     *
+     * @since 1.0
+     * @param index Sample index.
+     * @return Bytes processed.
+     */
+    public long getBytes(int index) {
+        checkIndex(index);
+        return bytes[index];
+    }
+
+    /**
+     * Returns the heap memory allocated by a sample.
+     *
+     * @since 1.1
+     * @param index Sample index.
+     * @return Allocated bytes.
+     */
+    public long getAllocatedBytes(int index) {
+        checkIndex(index);
+        return allocatedBytes[index];
+    }
+
+    /**
+     * Returns the garbage collections overlapping a sample.
+     *
+     * @since 1.1
+     * @param index Sample index.
+     * @return Collection count.
+     */
+    public long getGcCount(int index) {
+        checkIndex(index);
+        return gcCounts[index];
+    }
+
+    /**
+     * Returns the garbage collection time overlapping a sample.
+     *
+     * @since 1.1
+     * @param index Sample index.
+     * @return Collection time in nanoseconds.
+     */
+    public long getGcTime(int index) {
+        checkIndex(index);
+        return gcTimes[index];
+    }
+
+    /**
+     * Validates a sample index.
+     *
+     * @since 1.0
+     * @param index Sample index.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= nSamples) {
+            throw new IndexOutOfBoundsException("Sample: " + index + ", samples: " + nSamples);
+        }
+    }
+
+    /**
+     * Removes all samples, keeping the allocated columns.
+     *
+     * @since 1.0
+     */
+    public void clear() {
+        nSamples = 0;
+    }
+
+    /**
+     * Export all samples into the specified output.
+     *
+     * <p>
+     * One line per sample, tab separated, following the order: sample index,
+     * clock, CPU, user and system times (nanoseconds), bytes processed, bytes
+     * allocated, garbage collections and their time (nanoseconds). The first
+     * line is a header.
+     * </p>
+     *
+     * @since 1.0
+     * @param output Desired destination.
+     */
+    public void print(PrintStream output) {
+        output.println("Sample\tClock Time\tCpu Time\tUser Time\tSystem Time\tBytes\tAllocated\tGC Count\tGC Time");
+
+        for (int i = 0; i < nSamples; i++) {
+            output.printf("%d\t%d\t%d\t%d\t%d\t%d\t%d\t%d\t%d\n",
+                    i,
+                    clockTimes[i],
+                    cpuTimes[i],
+                    userTimes[i],
+                    systemTimes[i],
+                    bytes[i],
+                    allocatedBytes[i],
+                    gcCounts[i],
+                    gcTimes[i]
+            );
+        }
+    }
+}
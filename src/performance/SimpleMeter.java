@@ -26,6 +26,10 @@
  */
 package performance;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Class to perform performance measurements.
  *
@@ -42,9 +46,17 @@ package performance;
  * application; e.g., I/O;</li>
  * <li>CPU time: is user time plus system time. It is the total time spent using
  * any CPU for the application;</li>
+ * <li>Allocated bytes: heap memory allocated by the thread;</li>
+ * <li>Garbage collections: number and time of the collections overlapping the
+ * measurements, on any thread;</li>
  * </ul>
  *
  * <p>
+ * Along with the times, the meter keeps the amount of work measured, as
+ * reported by its user: bytes processed and operations executed.
+ * </p>
+ *
+ * <p>
  * Nanosecond precision but not necessarily nanosecond accuracy (platform
  * dependent).
  * </p>
@@ -56,6 +68,8 @@ package performance;
  * @see CpuTimer
  * @see UserTimer
  * @see SystemTimer
+ * @see AllocationMeter
+ * @see GcMeter
  */
 public class SimpleMeter {
 
@@ -63,12 +77,58 @@ public class SimpleMeter {
     private final CpuTimer cpuTimer;
     private final UserTimer userTimer;
     private final SystemTimer systemTimer;
+    private final AllocationMeter allocationMeter;
+    private final GcMeter gcMeter;
+
+    /**
+     * Bytes processed while measuring.
+     *
+     * @since 1.1
+     */
+    private long bytes;
+
+    /**
+     * Operations executed while measuring.
+     *
+     * @since 1.1
+     */
+    private long operations;
+
+    /**
+     * Latencies of the individual operations, if recorded.
+     *
+     * @since 1.1
+     */
+    private Histogram latencies;
+
+    /**
+     * Clock time of each named phase, in the order phases first started.
+     *
+     * @since 1.1
+     */
+    private Map<String, Long> phases;
+
+    /**
+     * Phase being measured, or null if none.
+     *
+     * @since 1.1
+     */
+    private String currentPhase;
+
+    /**
+     * Clock time when the current phase started.
+     *
+     * @since 1.1
+     */
+    private long phaseStart;
 
     public SimpleMeter() {
         clockTimer = new ClockTimer();
         cpuTimer = new CpuTimer();
         userTimer = new UserTimer();
         systemTimer = new SystemTimer();
+        allocationMeter = new AllocationMeter();
+        gcMeter = new GcMeter();
     }
 
     /**
@@ -77,10 +137,12 @@ public class SimpleMeter {
      * @since 1.0
      */
     public void start() {
+        gcMeter.start();
         startClockTimer();
         startCpuTimer();
         startUserTimer();
         startSystemTimer();
+        allocationMeter.start();
     }
 
     /**
@@ -89,10 +151,12 @@ public class SimpleMeter {
      * @since 1.0
      */
     public void stop() {
+        allocationMeter.stop();
         stopClockTimer();
         stopCpuTimer();
         stopUserTimer();
         stopSystemTimer();
+        gcMeter.stop();
     }
 
     /**
@@ -291,6 +355,176 @@ public class SimpleMeter {
         return systemTimer.getTimeNow();
     }
 
+    /**
+     * Access heap memory allocated, from when the meter was started to when it
+     * was finalized.
+     *
+     * @since 1.1
+     * @return Allocated bytes, or zero if allocations can not be measured.
+     */
+    public long getAllocatedBytes() {
+        return allocationMeter.getAllocatedBytes();
+    }
+
+    /**
+     * Access the number of garbage collections, from when the meter was
+     * started to when it was finalized.
+     *
+     * @since 1.1
+     * @return Collection count.
+     */
+    public long getGcCount() {
+        return gcMeter.getCollectionCount();
+    }
+
+    /**
+     * Access the garbage collection time, from when the meter was started to
+     * when it was finalized.
+     *
+     * @since 1.1
+     * @return Collection time in nanoseconds (millisecond precision).
+     */
+    public long getGcTime() {
+        return gcMeter.getCollectionTime();
+    }
+
+    /**
+     * Adds to the bytes processed while measuring.
+     *
+     * @since 1.1
+     * @param bytes Number of bytes processed.
+     */
+    public void addBytes(long bytes) {
+        this.bytes += bytes;
+    }
+
+    /**
+     * Access the bytes processed while measuring.
+     *
+     * @since 1.1
+     * @return Number of bytes processed, as reported.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Adds to the operations executed while measuring.
+     *
+     * <p>
+     * Operations are units of work of fixed size, such as blocks encrypted by
+     * an asymmetric cipher.
+     * </p>
+     *
+     * @since 1.1
+     * @param operations Number of operations executed.
+     */
+    public void addOperations(long operations) {
+        this.operations += operations;
+    }
+
+    /**
+     * Access the operations executed while measuring.
+     *
+     * @since 1.1
+     * @return Number of operations executed, as reported.
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * Records the latency of an individual operation.
+     *
+     * <p>
+     * For experiments made of many small operations, such as short messages
+     * encrypted one at a time, where the distribution of each operation's
+     * time matters and not only the experiment total.
+     * </p>
+     *
+     * @since 1.1
+     * @param latency Operation's clock time in nanoseconds.
+     */
+    public void recordLatency(long latency) {
+        if (latencies == null) {
+            latencies = new Histogram();
+        }
+
+        latencies.record(latency);
+    }
+
+    /**
+     * Access the latencies of the individual operations.
+     *
+     * @since 1.1
+     * @return Recorded latencies, in nanoseconds, or null if none were
+     * recorded.
+     */
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Ends the current phase, if any, and starts measuring a new one.
+     *
+     * <p>
+     * Phases are measured on clock time, independently of the meter's start
+     * and stop, so work done before starting the meter, such as provider
+     * lookup and key generation, can also be accounted. Starting a phase
+     * already measured adds to its time.
+     * </p>
+     *
+     * @since 1.1
+     * @param name Phase name.
+     */
+    public void phase(String name) {
+        long now = System.nanoTime();
+
+        endPhase(now);
+        currentPhase = name;
+        phaseStart = now;
+    }
+
+    /**
+     * Ends the current phase, if any.
+     *
+     * @since 1.1
+     */
+    public void endPhase() {
+        endPhase(System.nanoTime());
+    }
+
+    /**
+     * Ends the current phase, if any, at a given time.
+     *
+     * @since 1.1
+     * @param now Current clock time.
+     */
+    private void endPhase(long now) {
+        if (currentPhase == null) {
+            return;
+        }
+
+        if (phases == null) {
+            phases = new LinkedHashMap<>();
+        }
+
+        Long time = phases.get(currentPhase);
+        phases.put(currentPhase, (time == null ? 0 : time) + now - phaseStart);
+        currentPhase = null;
+    }
+
+    /**
+     * Access the clock time of each phase.
+     *
+     * @since 1.1
+     * @return Phase times in nanoseconds, in the order phases first started;
+     * empty if no phase was measured.
+     */
+    public Map<String, Long> getPhases() {
+        return phases == null ? Collections.<String, Long>emptyMap() : Collections.unmodifiableMap(phases);
+    }
+
     /**
      * Return the string representation for all timers.
      * <p>
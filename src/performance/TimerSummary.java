@@ -27,6 +27,9 @@
 package performance;
 
 import java.io.PrintStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -44,6 +47,108 @@ public class TimerSummary {
     private long userTime;
     private long systemTime;
 
+    /**
+     * Bytes processed by all experiments.
+     *
+     * @since 1.1
+     */
+    private long bytes;
+
+    /**
+     * Operations executed by all experiments.
+     *
+     * @since 1.1
+     */
+    private long operations;
+
+    /**
+     * Heap memory allocated by all experiments.
+     *
+     * @since 1.1
+     */
+    private long allocatedBytes;
+
+    /**
+     * Number of experiments overlapping garbage collections.
+     *
+     * @since 1.1
+     */
+    private long nGcTimes;
+
+    /**
+     * Garbage collections overlapping the experiments.
+     *
+     * @since 1.1
+     */
+    private long gcCount;
+
+    /**
+     * Garbage collection time overlapping the experiments.
+     *
+     * @since 1.1
+     */
+    private long gcTime;
+
+    /**
+     * Clock time total of the experiments not overlapping garbage
+     * collections.
+     *
+     * @since 1.1
+     */
+    private long clockTimeWithoutGc;
+
+    private static final double MEGABYTE = 1024.0 * 1024.0;
+
+    private final Histogram clockTimes = new Histogram();
+    private final Histogram cpuTimes = new Histogram();
+    private final Histogram userTimes = new Histogram();
+    private final Histogram systemTimes = new Histogram();
+
+    /**
+     * Latencies of the individual operations, from all experiments recording
+     * them.
+     *
+     * @since 1.1
+     */
+    private final Histogram latencies = new Histogram();
+
+    /**
+     * Clock time total of each phase, in the order phases were first
+     * reported.
+     *
+     * @since 1.1
+     */
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    /**
+     * Percentiles reported by the string representations.
+     *
+     * @since 1.1
+     */
+    private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+
+    /**
+     * Number of unmeasured warm-up experiments executed before the
+     * measurements.
+     *
+     * @since 1.1
+     */
+    private long warmUpIterations;
+
+    /**
+     * If the warm-up reached steady state before exhausting its budget.
+     *
+     * @since 1.1
+     */
+    private boolean steadyState;
+
+    /**
+     * Optional recorder for the raw measurements.
+     *
+     * @since 1.1
+     */
+    private SampleRecorder samples;
+
     /**
      * Optional name for this summary.
      *
@@ -71,11 +176,56 @@ public class TimerSummary {
      * @param meter
      */
     public void addSimpleMeter(SimpleMeter meter) {
+        addSimpleMeter(meter, meter.getBytes());
+    }
+
+    /**
+     * Adds a SimpleMeter's measurements into the summary.
+     *
+     * <p>
+     * If a sample recorder is attached, the raw measurements are also
+     * recorded, along with the bytes processed.
+     * </p>
+     *
+     * @since 1.1
+     * @param meter
+     * @param bytes Bytes processed during the measurements, used only if the
+     * meter reports none.
+     */
+    public void addSimpleMeter(SimpleMeter meter, long bytes) {
+        if (meter.getBytes() > 0) {
+            bytes = meter.getBytes();
+        }
+
         addNTimes(1);
         addClockTime(meter.getClockTime());
         addCpuTime(meter.getCpuTime());
         addUserTime(meter.getUserTime());
         addSystemTime(meter.getSystemTime());
+        this.bytes += bytes;
+        this.operations += meter.getOperations();
+        this.allocatedBytes += meter.getAllocatedBytes();
+
+        if (meter.getLatencies() != null) {
+            latencies.add(meter.getLatencies());
+        }
+
+        for (Map.Entry<String, Long> phase : meter.getPhases().entrySet()) {
+            Long time = phases.get(phase.getKey());
+            phases.put(phase.getKey(), (time == null ? 0 : time) + phase.getValue());
+        }
+
+        if (meter.getGcCount() > 0) {
+            nGcTimes++;
+            gcCount += meter.getGcCount();
+            gcTime += meter.getGcTime();
+        } else {
+            clockTimeWithoutGc += meter.getClockTime();
+        }
+
+        if (samples != null) {
+            samples.add(meter, bytes);
+        }
     }
 
     /**
@@ -89,43 +239,47 @@ public class TimerSummary {
     }
 
     /**
-     * Adds to the clock time total.
+     * Adds to the clock time total and distribution.
      *
      * @since 1.0
      * @param clockTime
      */
     private void addClockTime(long clockTime) {
         this.clockTime += clockTime;
+        clockTimes.record(clockTime);
     }
 
     /**
-     * Adds to the CPU time total.
+     * Adds to the CPU time total and distribution.
      *
      * @since 1.0
      * @param cpuTime
      */
     private void addCpuTime(long cpuTime) {
         this.cpuTime += cpuTime;
+        cpuTimes.record(cpuTime);
     }
 
     /**
-     * Adds to the user time total.
+     * Adds to the user time total and distribution.
      *
      * @since 1.0
      * @param userTime
      */
     private void addUserTime(long userTime) {
         this.userTime += userTime;
+        userTimes.record(userTime);
     }
 
     /**
-     * Adds to the system time total.
+     * Adds to the system time total and distribution.
      *
      * @since 1.0
      * @param systemTime
      */
     private void addSystemTime(long systemTime) {
         this.systemTime += systemTime;
+        systemTimes.record(systemTime);
     }
 
     /**
@@ -138,6 +292,154 @@ public class TimerSummary {
         return nTimes;
     }
 
+    /**
+     * Returns the bytes processed by all experiments.
+     *
+     * @since 1.1
+     * @return Total bytes processed.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the operations executed by all experiments.
+     *
+     * @since 1.1
+     * @return Total operations executed.
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * Returns the throughput on clock time.
+     *
+     * @since 1.1
+     * @return Megabytes (2^20 bytes) processed per second of clock time.
+     */
+    public double getThroughput() {
+        return clockTime == 0 ? 0 : (bytes / MEGABYTE) / (clockTime / 1e9);
+    }
+
+    /**
+     * Returns the throughput on CPU time.
+     *
+     * @since 1.1
+     * @return Megabytes (2^20 bytes) processed per second of CPU time.
+     */
+    public double getCpuThroughput() {
+        return cpuTime == 0 ? 0 : (bytes / MEGABYTE) / (cpuTime / 1e9);
+    }
+
+    /**
+     * Returns the clock time per byte.
+     *
+     * @since 1.1
+     * @return Nanoseconds of clock time per byte processed.
+     */
+    public double getClockTimePerByte() {
+        return bytes == 0 ? 0 : ((double) clockTime) / bytes;
+    }
+
+    /**
+     * Returns the operations rate.
+     *
+     * @since 1.1
+     * @return Operations executed per second of clock time.
+     */
+    public double getOperationsPerSecond() {
+        return clockTime == 0 ? 0 : operations / (clockTime / 1e9);
+    }
+
+    /**
+     * Returns the heap memory allocated by all experiments.
+     *
+     * @since 1.1
+     * @return Total allocated bytes.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the heap memory allocated per experiment.
+     *
+     * @since 1.1
+     * @return Allocated bytes total divided by the number of experiments.
+     */
+    public double getAllocatedBytesAvg() {
+        return nTimes == 0 ? 0 : ((double) allocatedBytes) / nTimes;
+    }
+
+    /**
+     * Returns the heap memory allocated per operation.
+     *
+     * @since 1.1
+     * @return Allocated bytes per operation executed, or zero if no operations
+     * were reported.
+     */
+    public double getAllocatedBytesPerOperation() {
+        return operations == 0 ? 0 : ((double) allocatedBytes) / operations;
+    }
+
+    /**
+     * Returns the heap memory allocated per megabyte processed.
+     *
+     * @since 1.1
+     * @return Allocated bytes per megabyte (2^20 bytes) processed, or zero if
+     * no bytes were reported.
+     */
+    public double getAllocatedBytesPerMegabyte() {
+        return bytes == 0 ? 0 : allocatedBytes / (bytes / MEGABYTE);
+    }
+
+    /**
+     * Returns the number of experiments overlapping garbage collections.
+     *
+     * @since 1.1
+     * @return Number of experiments during which, at least, one collection
+     * happened.
+     */
+    public long getNGcTimes() {
+        return nGcTimes;
+    }
+
+    /**
+     * Returns the number of garbage collections overlapping the experiments.
+     *
+     * @since 1.1
+     * @return Collection count.
+     */
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * Returns the garbage collection time overlapping the experiments.
+     *
+     * @since 1.1
+     * @param unit Desired unit.
+     * @return Collection time.
+     */
+    public double getGcTime(TimeUnit unit) {
+        return ((double) gcTime) / unit.toNanos(1);
+    }
+
+    /**
+     * Returns the clock time average of the experiments not overlapping
+     * garbage collections.
+     *
+     * @since 1.1
+     * @param unit Desired unit.
+     * @return Clock time total, without the experiments overlapping
+     * collections, divided by their number; zero if all of them overlapped.
+     */
+    public double getClockTimeAvgWithoutGc(TimeUnit unit) {
+        long n = nTimes - nGcTimes;
+        return n == 0 ? 0 : ((double) clockTimeWithoutGc) / n / unit.toNanos(1);
+    }
+
     /**
      * Returns the clock time total.
      *
@@ -306,6 +608,130 @@ public class TimerSummary {
         return ((double) getSystemTime(unit)) / getNTimes();
     }
 
+    /**
+     * Returns the clock time distribution.
+     *
+     * @since 1.1
+     * @return Histogram of clock times, in nanoseconds.
+     */
+    public Histogram getClockTimes() {
+        return clockTimes;
+    }
+
+    /**
+     * Returns the CPU time distribution.
+     *
+     * @since 1.1
+     * @return Histogram of CPU times, in nanoseconds.
+     */
+    public Histogram getCpuTimes() {
+        return cpuTimes;
+    }
+
+    /**
+     * Returns the user time distribution.
+     *
+     * @since 1.1
+     * @return Histogram of user times, in nanoseconds.
+     */
+    public Histogram getUserTimes() {
+        return userTimes;
+    }
+
+    /**
+     * Returns the system time distribution.
+     *
+     * @since 1.1
+     * @return Histogram of system times, in nanoseconds.
+     */
+    public Histogram getSystemTimes() {
+        return systemTimes;
+    }
+
+    /**
+     * Returns the distribution of the individual operations' latencies.
+     *
+     * @since 1.1
+     * @return Latency histogram, in nanoseconds; empty if the experiments did
+     * not record latencies.
+     */
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns the clock time total of each phase.
+     *
+     * @since 1.1
+     * @return Phase times in nanoseconds, in the order phases were first
+     * reported; empty if no phases were measured.
+     */
+    public Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(phases);
+    }
+
+    /**
+     * Returns the clock time average of a phase.
+     *
+     * @since 1.1
+     * @param phase Phase name.
+     * @param unit Desired unit.
+     * @return Phase time total divided by the number of experiments; zero if
+     * the phase was not measured.
+     */
+    public double getPhaseTimeAvg(String phase, TimeUnit unit) {
+        Long time = phases.get(phase);
+        return time == null || nTimes == 0 ? 0 : ((double) time) / nTimes / unit.toNanos(1);
+    }
+
+    /**
+     * Returns the clock time at the given percentile.
+     *
+     * @since 1.1
+     * @param percentile Desired percentile, from 0 to 100.
+     * @param unit Desired unit.
+     * @return Clock time at the given percentile.
+     */
+    public double getClockTimePercentile(double percentile, TimeUnit unit) {
+        return clockTimes.getPercentile(percentile, unit);
+    }
+
+    /**
+     * Returns the CPU time at the given percentile.
+     *
+     * @since 1.1
+     * @param percentile Desired percentile, from 0 to 100.
+     * @param unit Desired unit.
+     * @return CPU time at the given percentile.
+     */
+    public double getCpuTimePercentile(double percentile, TimeUnit unit) {
+        return cpuTimes.getPercentile(percentile, unit);
+    }
+
+    /**
+     * Returns the user time at the given percentile.
+     *
+     * @since 1.1
+     * @param percentile Desired percentile, from 0 to 100.
+     * @param unit Desired unit.
+     * @return User time at the given percentile.
+     */
+    public double getUserTimePercentile(double percentile, TimeUnit unit) {
+        return userTimes.getPercentile(percentile, unit);
+    }
+
+    /**
+     * Returns the system time at the given percentile.
+     *
+     * @since 1.1
+     * @param percentile Desired percentile, from 0 to 100.
+     * @param unit Desired unit.
+     * @return System time at the given percentile.
+     */
+    public double getSystemTimePercentile(double percentile, TimeUnit unit) {
+        return systemTimes.getPercentile(percentile, unit);
+    }
+
     /**
      * Returns the string representation for all averages.
      * <p>
@@ -352,7 +778,8 @@ public class TimerSummary {
      * Returns the string representation for all averages.
      * <p>
      * The string will follow the order: n experiments, clock, CPU, user and
-     * system times ("%f\t%f\t%f\t%f\t%f\n").
+     * system times ("%f\t%f\t%f\t%f\t%f"), followed by the clock time
+     * percentiles (p50, p99, p99.9) and maximum.
      * </p>
      *
      * @since 1.0
@@ -362,13 +789,13 @@ public class TimerSummary {
      * @return String representation for the averages.
      */
     public String toString(TimeUnit unit, int precision) {
-        return String.format("%15d\t%10." + precision + "f\t%10." + precision + "f\t%10." + precision + "f\t%11." + precision + "f\n",
+        return String.format("%15d\t%10." + precision + "f\t%10." + precision + "f\t%10." + precision + "f\t%11." + precision + "f",
                 getNTimes(),
                 getClockTimeAvg(unit),
                 getCpuTimeAvg(unit),
                 getUserTimeAvg(unit),
                 getSystemTimeAvg(unit)
-        );
+        ) + toStringPercentiles(clockTimes, unit, precision) + "\n";
     }
 
     /**
@@ -383,15 +810,159 @@ public class TimerSummary {
      * @return String representation for the averages.
      */
     public String toStringHeader(TimeUnit unit) {
-        return String.format("%15s\t%10s\t%10s\t%10s\t%11s\t" + unit.name() + "/experiment",
+        return String.format("%15s\t%10s\t%10s\t%10s\t%11s",
                 "N. Experiments",
                 "Clock Time",
                 "Cpu Time",
                 "User Time",
                 "System Time"
+        ) + toStringPercentilesHeader("Clock") + "\t" + unit.name() + "/experiment";
+    }
+
+    /**
+     * Returns the string representation for the percentiles of all times.
+     * <p>
+     * One line per time (clock, CPU, user and system), following the order:
+     * p50, p99, p99.9 and maximum.
+     * </p>
+     *
+     * @since 1.1
+     * @param unit Desired unit.
+     * @param precision Desired precision, for float point string
+     * representation.
+     * @return String representation for the percentiles.
+     */
+    public String toStringPercentiles(TimeUnit unit, int precision) {
+        return String.format("%15s", "Clock Time") + toStringPercentiles(clockTimes, unit, precision) + "\n"
+                + String.format("%15s", "Cpu Time") + toStringPercentiles(cpuTimes, unit, precision) + "\n"
+                + String.format("%15s", "User Time") + toStringPercentiles(userTimes, unit, precision) + "\n"
+                + String.format("%15s", "System Time") + toStringPercentiles(systemTimes, unit, precision) + "\n";
+    }
+
+    /**
+     * Returns the header for the string representation for the percentiles of
+     * all times.
+     *
+     * @since 1.1
+     * @param unit Desired unit.
+     * @return Header for the percentiles.
+     */
+    public String toStringPercentilesHeader(TimeUnit unit) {
+        return String.format("%15s", "Percentiles") + toStringPercentilesHeader("") + "\t" + unit.name() + "/experiment";
+    }
+
+    /**
+     * Returns the string representation for the throughput.
+     * <p>
+     * The string will follow the order: MB/s, MB per CPU second, ns/byte and
+     * operations per second.
+     * </p>
+     *
+     * @since 1.1
+     * @param precision Desired precision, for float point string
+     * representation.
+     * @return String representation for the throughput.
+     */
+    public String toStringThroughput(int precision) {
+        return String.format("%15." + precision + "f\t%10." + precision + "f\t%10." + precision + "f\t%11." + precision + "f",
+                getThroughput(),
+                getCpuThroughput(),
+                getClockTimePerByte(),
+                getOperationsPerSecond()
+        );
+    }
+
+    /**
+     * Returns the header for the string representation for the throughput.
+     *
+     * @since 1.1
+     * @return Header for the throughput.
+     */
+    public String toStringThroughputHeader() {
+        return String.format("%15s\t%10s\t%10s\t%11s",
+                "MB/s",
+                "MB/CPU s",
+                "ns/byte",
+                "ops/s"
+        );
+    }
+
+    /**
+     * Returns the string representation for the heap allocations.
+     * <p>
+     * The string will follow the order: bytes allocated per experiment, per
+     * operation and per megabyte processed.
+     * </p>
+     *
+     * @since 1.1
+     * @param precision Desired precision, for float point string
+     * representation.
+     * @return String representation for the allocations.
+     */
+    public String toStringAllocations(int precision) {
+        return String.format("%15." + precision + "f\t%15." + precision + "f\t%15." + precision + "f",
+                getAllocatedBytesAvg(),
+                getAllocatedBytesPerOperation(),
+                getAllocatedBytesPerMegabyte()
         );
     }
 
+    /**
+     * Returns the header for the string representation for the heap
+     * allocations.
+     *
+     * @since 1.1
+     * @return Header for the allocations.
+     */
+    public String toStringAllocationsHeader() {
+        return String.format("%15s\t%15s\t%15s\t%s",
+                "Alloc/exp",
+                "Alloc/op",
+                "Alloc/MB",
+                "BYTES"
+        );
+    }
+
+    /**
+     * Formats the percentiles and maximum of a distribution as columns.
+     *
+     * @since 1.1
+     * @param times Distribution to format.
+     * @param unit Desired unit.
+     * @param precision Desired precision.
+     * @return Tab prefixed columns.
+     */
+    private static String toStringPercentiles(Histogram times, TimeUnit unit, int precision) {
+        StringBuilder columns = new StringBuilder();
+
+        for (double percentile : PERCENTILES) {
+            columns.append(String.format("\t%11." + precision + "f", times.getPercentile(percentile, unit)));
+        }
+        columns.append(String.format("\t%11." + precision + "f", times.getMax(unit)));
+
+        return columns.toString();
+    }
+
+    /**
+     * Formats the header for the percentiles and maximum columns.
+     *
+     * @since 1.1
+     * @param prefix Prefix for the column names.
+     * @return Tab prefixed column names.
+     */
+    private static String toStringPercentilesHeader(String prefix) {
+        StringBuilder columns = new StringBuilder();
+
+        for (double percentile : PERCENTILES) {
+            String name = percentile == Math.rint(percentile)
+                    ? Long.toString((long) percentile) : Double.toString(percentile);
+            columns.append(String.format("\t%11s", (prefix + " p" + name).trim()));
+        }
+        columns.append(String.format("\t%11s", (prefix + " Max").trim()));
+
+        return columns.toString();
+    }
+
     /**
      * Access summary's name.
      *
@@ -412,6 +983,60 @@ public class TimerSummary {
         this.name = name;
     }
 
+    /**
+     * Returns the number of warm-up experiments.
+     *
+     * @since 1.1
+     * @return Number of unmeasured experiments executed before the
+     * measurements.
+     */
+    public long getWarmUpIterations() {
+        return warmUpIterations;
+    }
+
+    /**
+     * Returns if the warm-up reached steady state.
+     *
+     * @since 1.1
+     * @return True if the warm-up ended on steady state, false if its budget
+     * was exhausted or no warm-up was executed.
+     */
+    public boolean isSteadyState() {
+        return steadyState;
+    }
+
+    /**
+     * Records the warm-up executed before the measurements.
+     *
+     * @since 1.1
+     * @param iterations Number of unmeasured experiments.
+     * @param steadyState If steady state was reached.
+     */
+    public void setWarmUp(long iterations, boolean steadyState) {
+        this.warmUpIterations = iterations;
+        this.steadyState = steadyState;
+    }
+
+    /**
+     * Access the recorder for the raw measurements.
+     *
+     * @since 1.1
+     * @return Attached recorder, or null if raw measurements are not kept.
+     */
+    public SampleRecorder getSampleRecorder() {
+        return samples;
+    }
+
+    /**
+     * Attaches a recorder for the raw measurements.
+     *
+     * @since 1.1
+     * @param samples Recorder to use, or null to discard raw measurements.
+     */
+    public void setSampleRecorder(SampleRecorder samples) {
+        this.samples = samples;
+    }
+
     /**
      * Print the summary into the specified output.
      * 
@@ -424,8 +1049,64 @@ public class TimerSummary {
             output.println(getName());
         }
 
+        if (getWarmUpIterations() > 0) {
+            output.println("Warm-up: " + getWarmUpIterations() + " experiments"
+                    + (isSteadyState() ? ", steady state reached" : ", budget exhausted"));
+        }
+
         output.println(toStringHeader(TimeUnit.MILLISECONDS));
         output.println(toString(TimeUnit.MILLISECONDS, 2));
+
+        if (getBytes() > 0) {
+            output.println(toStringThroughputHeader());
+            output.println(toStringThroughput(2));
+            output.println();
+        } else if (getOperations() > 0) {//No input: operations only
+            output.println(String.format("%15s", "ops/s"));
+            output.println(String.format("%15.2f", getOperationsPerSecond()));
+            output.println();
+        }
+
+        if (!phases.isEmpty()) {
+            StringBuilder header = new StringBuilder(String.format("%15s", "Phases"));
+            StringBuilder times = new StringBuilder(String.format("%15s", "Clock Time"));
+
+            for (String phase : phases.keySet()) {
+                header.append(String.format("\t%10s", phase));
+                times.append(String.format("\t%10.2f", getPhaseTimeAvg(phase, TimeUnit.MILLISECONDS)));
+            }
+
+            output.println(header.append("\t").append(TimeUnit.MILLISECONDS.name()).append("/experiment"));
+            output.println(times);
+            output.println();
+        }
+
+        if (latencies.getNValues() > 0) {
+            output.println(String.format("%15s", "Latency") + toStringPercentilesHeader("")
+                    + "\t" + TimeUnit.MICROSECONDS.name() + "/operation");
+            output.println(String.format("%15s", "Operation") + toStringPercentiles(latencies, TimeUnit.MICROSECONDS, 2));
+            output.println();
+        }
+
+        output.println(String.format("GC: %d of %d experiments overlapped %d collections (%.2f %s); clock time without them: %.2f %s/experiment",
+                getNGcTimes(),
+                getNTimes(),
+                getGcCount(),
+                getGcTime(TimeUnit.MILLISECONDS),
+                TimeUnit.MILLISECONDS.name(),
+                getClockTimeAvgWithoutGc(TimeUnit.MILLISECONDS),
+                TimeUnit.MILLISECONDS.name()
+        ));
+        output.println();
+
+        if (AllocationMeter.isSupported()) {
+            output.println(toStringAllocationsHeader());
+            output.println(toStringAllocations(0));
+            output.println();
+        }
+
+        output.println(toStringPercentilesHeader(TimeUnit.MILLISECONDS));
+        output.println(toStringPercentiles(TimeUnit.MILLISECONDS, 2));
     }
 
 }